@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.5.4"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.possessor"
@@ -19,6 +20,18 @@ configurations {
     }
 }
 
+// Load-test stand-ins and the load generator, kept off the production classpath
+val loadtest by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations {
+    named("loadtestImplementation") { extendsFrom(configurations.implementation.get()) }
+    named("loadtestRuntimeOnly") { extendsFrom(configurations.runtimeOnly.get()) }
+    named("loadtestCompileOnly") { extendsFrom(configurations.compileOnly.get()) }
+}
+
 repositories {
     mavenCentral()
 }
@@ -30,6 +43,7 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("io.micrometer:micrometer-registry-prometheus")
+    implementation("io.micrometer:context-propagation")
     implementation("io.jsonwebtoken:jjwt-api:0.12.3")
     implementation("io.jsonwebtoken:jjwt-impl:0.12.3")
     implementation("io.jsonwebtoken:jjwt-jackson:0.12.3")
@@ -44,7 +58,7 @@ dependencies {
     implementation("io.github.resilience4j:resilience4j-reactor:2.1.0")
     compileOnly("org.projectlombok:lombok")
     runtimeOnly("org.postgresql:postgresql")
-    runtimeOnly("org.postgresql:r2dbc-postgresql")
+    implementation("org.postgresql:r2dbc-postgresql")
     annotationProcessor("org.projectlombok:lombok")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.springframework.security:spring-security-test")
@@ -53,6 +67,11 @@ dependencies {
     testImplementation("org.testcontainers:r2dbc")
     testImplementation("org.testcontainers:junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    jmh("org.springframework:spring-test")
+    "loadtestImplementation"("io.zonky.test:embedded-postgres:2.1.0")
+    "loadtestImplementation"("com.github.codemonstur:embedded-redis:1.4.3")
+    "loadtestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
+    "loadtestRuntimeOnly"("org.postgresql:postgresql")
 }
 
 // Security scanning
@@ -71,6 +90,42 @@ tasks.withType<Test> {
     }
 }
 
+// Microbenchmarks in src/jmh: ./gradlew jmh [-PjmhIncludes=Jwt]. Results land in
+// build/results/jmh/<commit>.json so runs on different commits can be diffed.
+val benchmarkCommit = providers.exec {
+    commandLine("git", "rev-parse", "--short", "HEAD")
+    isIgnoreExitValue = true
+}.standardOutput.asText.map { it.trim().ifEmpty { "unversioned" } }
+
+jmh {
+    jmhVersion = "1.37"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file(benchmarkCommit.map { "results/jmh/$it.json" })
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes = listOf(it) }
+}
+
+// ./gradlew loadtestServer starts the service with embedded Postgres and Redis, a discarding
+// SMTP transport and the token service stand-in; ./gradlew loadtest drives it, e.g.
+// ./gradlew loadtest -Pargs="--rate=500 --duration=2m --mix=register:5,login:30,profile:40,refresh:20,logout:5"
+tasks.register<JavaExec>("loadtestServer") {
+    group = "load test"
+    description = "Runs the service under the loadtest profile with in-process stand-ins"
+    classpath = loadtest.runtimeClasspath
+    mainClass = "com.possessor.loginapi.LoginApiApplication"
+    args("--spring.profiles.active=loadtest")
+}
+
+tasks.register<JavaExec>("loadtest") {
+    group = "load test"
+    description = "Drives a running service at a fixed arrival rate and reports latency percentiles"
+    classpath = loadtest.runtimeClasspath
+    mainClass = "com.possessor.loginapi.loadtest.LoadGenerator"
+    args(providers.gradleProperty("args").map { it.split(" ").filter(String::isNotBlank) }.getOrElse(emptyList()))
+}
+
 // Production build optimization
 tasks.jar {
     enabled = false
@@ -0,0 +1,59 @@
+package com.possessor.loginapi.config;
+
+import com.possessor.loginapi.constants.AuthConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.MDC;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of restoring the correlation and trace IDs into the MDC around each operator,
+// as spring.reactor.context-propagation=auto does, against the same pipeline without it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContextPropagationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean automatic;
+
+    @Param({"4", "16"})
+    public int operators;
+
+    private Context context;
+
+    @Setup
+    public void setUp() {
+        new ContextPropagationConfig().registerMdcAccessors();
+        if (automatic) {
+            Hooks.enableAutomaticContextPropagation();
+        }
+        context = Context.of(AuthConstants.CORRELATION_ID_KEY, "0f5c2a9e-8b1d-4c3e-9a7f-6d2b1e0c4a58",
+                AuthConstants.TRACE_ID_KEY, "4bf92f3577b34da6a3ce929d0e0e4736");
+    }
+
+    @TearDown
+    public void tearDown() {
+        Hooks.disableAutomaticContextPropagation();
+    }
+
+    // Each operator reads the MDC the way a log call would
+    @Benchmark
+    public Integer pipeline() {
+        Mono<Integer> mono = Mono.just(0);
+        for (int i = 0; i < operators; i++) {
+            mono = mono.map(value -> MDC.get(AuthConstants.CORRELATION_ID_KEY) != null ? value + 1 : value);
+        }
+        return mono.contextWrite(context).block();
+    }
+}
@@ -0,0 +1,62 @@
+package com.possessor.loginapi.filter;
+
+import com.possessor.loginapi.constants.AuthConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+// Header work every request pays in RateLimitFilter and CorrelationIdFilter
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeaderParsingBenchmark {
+
+    @Param({"none", "single", "proxied"})
+    public String forwardedFor;
+
+    private ServerHttpRequest request;
+    private String correlationId;
+    private String traceparent;
+
+    @Setup
+    public void setUp() {
+        MockServerHttpRequest.BodyBuilder builder = MockServerHttpRequest.post("/api/auth/v1/login")
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 443));
+        switch (forwardedFor) {
+            case "single" -> builder.header("X-Forwarded-For", "203.0.113.7");
+            case "proxied" -> builder.header("X-Forwarded-For", "203.0.113.7, 198.51.100.2, 10.1.2.3, 10.4.5.6");
+            default -> { }
+        }
+        request = builder
+                .header(AuthConstants.CORRELATION_ID_HEADER, "0f5c2a9e-8b1d-4c3e-9a7f-6d2b1e0c4a58")
+                .header(AuthConstants.TRACEPARENT_HEADER, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")
+                .build();
+        correlationId = request.getHeaders().getFirst(AuthConstants.CORRELATION_ID_HEADER);
+        traceparent = request.getHeaders().getFirst(AuthConstants.TRACEPARENT_HEADER);
+    }
+
+    @Benchmark
+    public String clientIp() {
+        return RateLimitFilter.getClientIp(request);
+    }
+
+    @Benchmark
+    public boolean correlationId() {
+        return CorrelationIdFilter.isValidId(correlationId);
+    }
+
+    @Benchmark
+    public String traceId() {
+        return CorrelationIdFilter.traceIdOf(traceparent);
+    }
+}
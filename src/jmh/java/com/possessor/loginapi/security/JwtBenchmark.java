@@ -0,0 +1,43 @@
+package com.possessor.loginapi.security;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Access token signing and the per-request verification done by JwtAuthenticationFilter
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "benchmark-secret-key-of-at-least-32-bytes!");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 604_800_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        token = jwtUtil.generateToken("benchmark_user", RoleBits.DEFAULT);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateToken("benchmark_user", RoleBits.DEFAULT);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtUtil.parseValidClaims(token);
+    }
+}
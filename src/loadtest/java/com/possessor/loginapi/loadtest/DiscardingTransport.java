@@ -0,0 +1,36 @@
+package com.possessor.loginapi.loadtest;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.URLName;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SMTP stand-in installed with {@code mail.smtp.class}. The outbox dispatcher opens, reuses and
+ * closes it exactly as it would a real connection, but messages are only counted.
+ */
+public class DiscardingTransport extends Transport {
+
+    private static final AtomicLong DISCARDED = new AtomicLong();
+
+    public DiscardingTransport(Session session, URLName urlName) {
+        super(session, urlName);
+    }
+
+    @Override
+    protected boolean protocolConnect(String host, int port, String user, String password) {
+        return true;
+    }
+
+    @Override
+    public void sendMessage(Message message, Address[] addresses) {
+        DISCARDED.incrementAndGet();
+    }
+
+    public static long discarded() {
+        return DISCARDED.get();
+    }
+}
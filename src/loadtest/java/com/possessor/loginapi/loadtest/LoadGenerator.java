@@ -0,0 +1,360 @@
+package com.possessor.loginapi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.possessor.loginapi.constants.ApiEndpoints;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests start at a fixed arrival rate whether or not earlier ones
+ * have finished, and latency is measured from each request's scheduled start, so a stalled
+ * server shows up as latency instead of silently lowering the offered load. A pool of virtual
+ * users carries sessions between operations; a user is only ever used by one request at a time,
+ * which keeps refresh token rotation legitimate. Profile, refresh and logout need a session, so
+ * they log in first when the user has none, and that request is counted as a login.
+ *
+ * <p>Options, as {@code --name=value}: {@code base-url}, {@code rate} (requests per second),
+ * {@code duration}, {@code warmup}, {@code users} (registered before the run), {@code max-in-flight}
+ * and {@code mix}, e.g. {@code register:5,login:30,profile:40,refresh:20,logout:5}.
+ */
+public final class LoadGenerator {
+
+    private static final String PASSWORD = "LoadTest1!Pass";
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+    private static final Duration REPORT_INTERVAL = Duration.ofSeconds(5);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    private static final int SEED_CONCURRENCY = 64;
+
+    enum Operation { REGISTER, LOGIN, PROFILE, REFRESH, LOGOUT }
+
+    private final Options options;
+    private final WebClient client;
+    private final Operation[] schedule;
+    private final Queue<VirtualUser> idle = new ConcurrentLinkedQueue<>();
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong userSequence = new AtomicLong();
+    private final LongAdder notSent = new LongAdder();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private LoadGenerator(Options options) {
+        this.options = options;
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(options.maxInFlight())
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.client = WebClient.builder()
+                .baseUrl(options.baseUrl())
+                .clientConnector(new ReactorClientHttpConnector(
+                        HttpClient.create(connections).responseTimeout(DRAIN_TIMEOUT)))
+                .build();
+        this.schedule = weightedSchedule(options.mix());
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    public static void main(String[] args) {
+        new LoadGenerator(Options.parse(args)).run();
+        System.exit(0);
+    }
+
+    private void run() {
+        System.out.printf("Seeding %d users against %s%n", options.users(), options.baseUrl());
+        Flux.range(0, options.users())
+                .flatMap(i -> {
+                    VirtualUser user = newUser();
+                    return register(user).doOnSuccess(ignored -> idle.offer(user)).onErrorResume(error -> Mono.empty());
+                }, SEED_CONCURRENCY)
+                .blockLast();
+        System.out.printf("Seeded %d users; %s warmup, then %s at %d req/s%n",
+                idle.size(), options.warmup(), options.duration(), options.rate());
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        reporter.scheduleAtFixedRate(() -> report(start, measureFrom), REPORT_INTERVAL.toMillis(),
+                REPORT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+            if (inFlight.get() >= options.maxInFlight()) {
+                notSent.increment();
+                continue;
+            }
+            fire(operation, intended, intended >= measureFrom);
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        reporter.shutdownNow();
+        summary(options.duration());
+    }
+
+    private void fire(Operation requested, long intended, boolean measured) {
+        VirtualUser user = requested == Operation.REGISTER ? null : idle.poll();
+        Operation operation = user == null ? Operation.REGISTER
+                : requested != Operation.LOGIN && !user.hasSession() ? Operation.LOGIN
+                : requested;
+        VirtualUser target = user != null ? user : newUser();
+
+        inFlight.incrementAndGet();
+        execute(operation, target)
+                .then(Mono.just(true))
+                .onErrorResume(error -> {
+                    failures.computeIfAbsent(operation + " " + describe(error), key -> new LongAdder()).increment();
+                    if (error instanceof WebClientResponseException.Unauthorized) {
+                        target.clearSession();
+                    }
+                    return Mono.just(false);
+                })
+                .subscribe(ok -> {
+                    if (measured) {
+                        stats.get(operation).record(System.nanoTime() - intended, ok);
+                    }
+                    if (operation != Operation.REGISTER || ok) {
+                        idle.offer(target);
+                    }
+                    inFlight.decrementAndGet();
+                });
+    }
+
+    private Mono<?> execute(Operation operation, VirtualUser user) {
+        return switch (operation) {
+            case REGISTER -> register(user);
+            case LOGIN -> post(ApiEndpoints.FULL_AUTH_LOGIN, user, null,
+                    Map.of("username", user.username, "password", PASSWORD))
+                    .doOnNext(user::startSession);
+            case PROFILE -> client.get()
+                    .uri(ApiEndpoints.FULL_USER_PROFILE)
+                    .header(FORWARDED_FOR, user.ip)
+                    .headers(headers -> headers.setBearerAuth(user.accessToken))
+                    .retrieve()
+                    .toBodilessEntity();
+            case REFRESH -> post(ApiEndpoints.FULL_AUTH_REFRESH, user, null, Map.of("refreshToken", user.refreshToken))
+                    .doOnNext(user::startSession);
+            case LOGOUT -> post(ApiEndpoints.FULL_AUTH_LOGOUT, user, user.accessToken,
+                    Map.of("refreshToken", user.refreshToken))
+                    .doOnSuccess(ignored -> user.clearSession());
+        };
+    }
+
+    private Mono<JsonNode> register(VirtualUser user) {
+        return post(ApiEndpoints.FULL_AUTH_REGISTER, user, null,
+                Map.of("username", user.username, "email", user.username + "@loadtest.example", "password", PASSWORD));
+    }
+
+    private Mono<JsonNode> post(String path, VirtualUser user, String bearer, Map<String, String> body) {
+        return client.post()
+                .uri(path)
+                .header(FORWARDED_FOR, user.ip)
+                .headers(headers -> {
+                    if (bearer != null) {
+                        headers.setBearerAuth(bearer);
+                    }
+                })
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(JsonNode.class);
+    }
+
+    // Each user gets its own synthetic client IP, so rate-limit keys have realistic cardinality
+    private VirtualUser newUser() {
+        long sequence = userSequence.incrementAndGet();
+        String ip = "10." + ((sequence >> 16) & 0xFF) + "." + ((sequence >> 8) & 0xFF) + "." + (sequence & 0xFF);
+        return new VirtualUser("lt" + runId + "_" + sequence, ip);
+    }
+
+    private void report(long start, long measureFrom) {
+        long now = System.nanoTime();
+        Histogram interval = new Histogram(3);
+        long errors = 0;
+        for (Stats operation : stats.values()) {
+            Histogram histogram = operation.interval();
+            interval.add(histogram);
+            errors += operation.intervalErrors();
+        }
+        System.out.printf(Locale.ROOT, "[%5ds]%s %8.1f req/s  p50 %7.2f ms  p99 %7.2f ms  errors %d  in-flight %d%n",
+                TimeUnit.NANOSECONDS.toSeconds(now - start), now < measureFrom ? " warmup" : "",
+                interval.getTotalCount() / (double) REPORT_INTERVAL.toSeconds(),
+                millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)),
+                errors, inFlight.get());
+    }
+
+    private void summary(Duration measured) {
+        System.out.printf(Locale.ROOT, "%n%-9s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Histogram total = entry.getValue().total();
+            long errors = entry.getValue().totalErrors();
+            all.add(total);
+            allErrors += errors;
+            printRow(entry.getKey().name().toLowerCase(Locale.ROOT), total, errors, measured);
+        }
+        printRow("all", all, allErrors, measured);
+        if (notSent.sum() > 0) {
+            System.out.printf("%d requests not sent: %d already in flight%n", notSent.sum(), options.maxInFlight());
+        }
+        failures.forEach((failure, count) -> System.out.printf("  %6d x %s%n", count.sum(), failure));
+    }
+
+    private static void printRow(String name, Histogram histogram, long errors, Duration measured) {
+        System.out.printf(Locale.ROOT, "%-9s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, histogram.getTotalCount(), errors, histogram.getTotalCount() / (measured.toMillis() / 1000.0),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String describe(Throwable error) {
+        return error instanceof WebClientResponseException response
+                ? "HTTP " + response.getStatusCode().value()
+                : error.getClass().getSimpleName();
+    }
+
+    // One slot per unit of weight, so picking a random slot follows the mix
+    private static Operation[] weightedSchedule(Map<Operation, Integer> mix) {
+        return mix.entrySet().stream()
+                .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(Operation[]::new);
+    }
+
+    // Latencies in microseconds; every request counts toward the latency distribution
+    private static final class Stats {
+
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram total = new Histogram(3);
+        private final LongAdder errors = new LongAdder();
+        private long reportedErrors;
+        private Histogram recycled;
+
+        void record(long nanos, boolean ok) {
+            recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+            if (!ok) {
+                errors.increment();
+            }
+        }
+
+        // Reporter thread only
+        synchronized Histogram interval() {
+            recycled = recorder.getIntervalHistogram(recycled);
+            total.add(recycled);
+            return recycled;
+        }
+
+        synchronized long intervalErrors() {
+            long current = errors.sum();
+            long interval = current - reportedErrors;
+            reportedErrors = current;
+            return interval;
+        }
+
+        synchronized Histogram total() {
+            interval();
+            return total;
+        }
+
+        long totalErrors() {
+            return errors.sum();
+        }
+    }
+
+    private static final class VirtualUser {
+
+        private final String username;
+        private final String ip;
+        private volatile String accessToken;
+        private volatile String refreshToken;
+
+        VirtualUser(String username, String ip) {
+            this.username = username;
+            this.ip = ip;
+        }
+
+        void startSession(JsonNode tokens) {
+            accessToken = tokens.path("accessToken").asText(null);
+            refreshToken = tokens.path("refreshToken").asText(null);
+        }
+
+        boolean hasSession() {
+            return accessToken != null && refreshToken != null;
+        }
+
+        void clearSession() {
+            accessToken = null;
+            refreshToken = null;
+        }
+    }
+
+    record Options(String baseUrl, int rate, Duration duration, Duration warmup, int users, int maxInFlight,
+                   Map<Operation, Integer> mix) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            for (String part : values.getOrDefault("mix", "register:5,login:30,profile:40,refresh:20,logout:5").split(",")) {
+                String[] weight = part.split(":");
+                mix.put(Operation.valueOf(weight[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(weight[1].trim()));
+            }
+            return new Options(
+                    values.getOrDefault("base-url", "http://localhost:8080"),
+                    Integer.parseInt(values.getOrDefault("rate", "200")),
+                    DurationStyle.detectAndParse(values.getOrDefault("duration", "60s")),
+                    DurationStyle.detectAndParse(values.getOrDefault("warmup", "10s")),
+                    Integer.parseInt(values.getOrDefault("users", "1000")),
+                    Integer.parseInt(values.getOrDefault("max-in-flight", "2000")),
+                    mix);
+        }
+    }
+}
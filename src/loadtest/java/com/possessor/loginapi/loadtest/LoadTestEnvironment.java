@@ -0,0 +1,88 @@
+package com.possessor.loginapi.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.io.ClassPathResource;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Starts an embedded Postgres and Redis before the context is built when the {@code loadtest}
+ * profile is active, applies {@code schema.sql} and points the R2DBC URL and Redis port at them.
+ * Postgres is the real server binary rather than an in-memory database because the schema and
+ * queries use Postgres-only SQL. Both are stopped when the JVM exits.
+ */
+public class LoadTestEnvironment implements EnvironmentPostProcessor, Ordered {
+
+    private static final String PROFILE = "loadtest";
+    private static final String DATABASE = "postgres";
+    private static volatile boolean started;
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.acceptsProfiles(Profiles.of(PROFILE)) || started) {
+            return;
+        }
+        started = true;
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            applySchema(postgres);
+            int redisPort = freePort();
+            RedisServer redis = new RedisServer(redisPort);
+            redis.start();
+            Runtime.getRuntime().addShutdownHook(Thread.ofPlatform().name("loadtest-stand-ins").unstarted(() -> {
+                try {
+                    redis.stop();
+                    postgres.close();
+                } catch (IOException e) {
+                    // Exiting anyway
+                }
+            }));
+
+            environment.getPropertySources().addFirst(new MapPropertySource("loadtest-stand-ins", Map.of(
+                    "spring.r2dbc.url", "r2dbc:postgresql://localhost:" + postgres.getPort() + "/" + DATABASE,
+                    "spring.r2dbc.username", DATABASE,
+                    "spring.r2dbc.password", "",
+                    "spring.redis.host", "localhost",
+                    "spring.redis.port", redisPort)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start load-test stand-ins", e);
+        }
+    }
+
+    // The script is sent as one simple-protocol query, which Postgres runs statement by statement
+    private static void applySchema(EmbeddedPostgres postgres) throws IOException {
+        String schema = new ClassPathResource("schema.sql").getContentAsString(StandardCharsets.UTF_8);
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(schema);
+        } catch (SQLException e) {
+            throw new IOException("Cannot apply schema.sql to the embedded database", e);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // After the config data processor, so profiles from properties and arguments are known
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,57 @@
+package com.possessor.loginapi.actuator;
+
+import com.possessor.loginapi.fault.Fault;
+import com.possessor.loginapi.fault.FaultInjector;
+import com.possessor.loginapi.fault.FaultTarget;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Set a fault with POST /{target}, lift it with DELETE /{target}, lift all with DELETE
+@Component
+@Endpoint(id = "faults")
+@ConditionalOnProperty(name = "app.faults.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class FaultsEndpoint {
+
+    private final FaultInjector faultInjector;
+
+    @ReadOperation
+    public Map<FaultTarget, Fault> faults() {
+        return faultInjector.active();
+    }
+
+    @WriteOperation
+    public Fault set(@Selector FaultTarget target, @Nullable Fault.Distribution distribution,
+                     @Nullable Duration latency, @Nullable Duration jitter, @Nullable Double latencyRate,
+                     @Nullable Double errorRate, @Nullable Double hangRate, @Nullable Duration duration) {
+        Duration base = latency != null ? latency : Duration.ZERO;
+        return faultInjector.set(target,
+                distribution != null ? distribution : Fault.Distribution.FIXED,
+                base,
+                jitter != null ? jitter : Duration.ZERO,
+                latencyRate != null ? latencyRate : (base.isZero() ? 0 : 1),
+                errorRate != null ? errorRate : 0,
+                hangRate != null ? hangRate : 0,
+                duration);
+    }
+
+    @DeleteOperation
+    public void clear(@Selector FaultTarget target) {
+        faultInjector.clear(target);
+    }
+
+    @DeleteOperation
+    public void clearAll() {
+        faultInjector.clearAll();
+    }
+}
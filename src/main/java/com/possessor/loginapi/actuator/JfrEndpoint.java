@@ -0,0 +1,60 @@
+package com.possessor.loginapi.actuator;
+
+import com.possessor.loginapi.jfr.JfrRecordings;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+// Start with POST, stop with POST /{id}, download the .jfr with GET /{id}, discard with DELETE /{id}
+@Component
+@Endpoint(id = "jfr")
+@RequiredArgsConstructor
+public class JfrEndpoint {
+    
+    private final JfrRecordings jfrRecordings;
+    
+    @ReadOperation
+    public List<Map<String, Object>> recordings() {
+        return jfrRecordings.list();
+    }
+    
+    @WriteOperation
+    public Map<String, Object> start(@Nullable Duration duration, @Nullable String settings)
+            throws IOException, ParseException {
+        return jfrRecordings.start(duration, settings);
+    }
+    
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> stop(@Selector long id) {
+        return jfrRecordings.stop(id)
+                .map(WebEndpointResponse::new)
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+    
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector long id) throws IOException {
+        return jfrRecordings.dump(id)
+                .<WebEndpointResponse<Resource>>map(file -> new WebEndpointResponse<>(new FileSystemResource(file)))
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+    
+    @DeleteOperation
+    public WebEndpointResponse<Void> discard(@Selector long id) {
+        return new WebEndpointResponse<>(jfrRecordings.close(id)
+                ? WebEndpointResponse.STATUS_NO_CONTENT : WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+}
@@ -0,0 +1,58 @@
+package com.possessor.loginapi.actuator;
+
+import com.possessor.loginapi.repository.ShardRebalancer;
+import com.possessor.loginapi.repository.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+@Endpoint(id = "shards")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardsEndpoint {
+    
+    private final ShardRouter shardRouter;
+    private final ShardRebalancer shardRebalancer;
+    private final AtomicReference<String> lastRun = new AtomicReference<>("none");
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> status = new LinkedHashMap<>(shardRouter.describe());
+        status.put("rebalance", lastRun.get());
+        return status;
+    }
+    
+    // Rebalances run in the background; poll the read operation for progress
+    @WriteOperation
+    public Map<String, Object> rebalance(int sourceShard, int targetShard, @Nullable Integer bucket) {
+        // Claimed before anything starts, so two concurrent requests cannot both move buckets
+        if (!running.compareAndSet(false, true)) {
+            return Map.of("started", false, "reason", "A rebalance is already running");
+        }
+        
+        String description = bucket != null
+                ? "move bucket " + bucket + " to shard " + targetShard
+                : "split shard " + sourceShard + " into shard " + targetShard;
+        lastRun.set("running: " + description);
+        (bucket != null
+                ? shardRebalancer.moveBucket(bucket, targetShard)
+                : shardRebalancer.split(sourceShard, targetShard))
+                .doFinally(signal -> running.set(false))
+                .subscribe(
+                        copied -> lastRun.set("completed: " + description + " (" + copied + " users)"),
+                        error -> lastRun.set("failed: " + description + " - " + error.getMessage()));
+        log.info("Started shard rebalance: {}", description);
+        return Map.of("started", true, "operation", description);
+    }
+}
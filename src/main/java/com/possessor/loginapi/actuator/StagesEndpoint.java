@@ -0,0 +1,29 @@
+package com.possessor.loginapi.actuator;
+
+import com.possessor.loginapi.support.StageTimer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Percentiles cover the last app.metrics.stage.window; count is cumulative
+@Component
+@Endpoint(id = "stages")
+@RequiredArgsConstructor
+public class StagesEndpoint {
+    
+    private final StageTimer stageTimer;
+    
+    @ReadOperation
+    public Map<String, Object> stages() {
+        return stageTimer.describe(null);
+    }
+    
+    @ReadOperation
+    public Map<String, Object> pipeline(@Selector String pipeline) {
+        return stageTimer.describe(pipeline);
+    }
+}
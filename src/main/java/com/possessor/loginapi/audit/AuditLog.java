@@ -0,0 +1,236 @@
+package com.possessor.loginapi.audit;
+
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.enums.AuthEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only audit trail of every auth attempt, unsampled. Request threads only offer a record to
+ * a lock-free ring; one writer thread assigns sequence numbers and copies fixed-size records into
+ * a memory-mapped segment file, so an append never makes a system call. Once a record is in the
+ * mapping it survives a process crash; {@code force} runs every {@code fsync-batch} records or
+ * {@code fsync-interval}, which bounds what a power loss can take. Segments roll at
+ * {@code segment-size} and are deleted after {@code retention}.
+ */
+@Component
+@Slf4j
+public class AuditLog implements SmartLifecycle {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long MIN_SEGMENT_SIZE = 1024L * AuditRecordCodec.RECORD_SIZE;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int fsyncBatch;
+    private final long fsyncIntervalNanos;
+    private final Duration retention;
+    private final Duration shutdownTimeout;
+    private final MpscRingBuffer<AuditRecord> ring;
+    private final Counter appended;
+    private final Counter dropped;
+    private final Timer fsync;
+    private volatile boolean running;
+    private Thread writer;
+
+    // Writer thread only
+    private final byte[] scratch = new byte[AuditRecordCodec.RECORD_SIZE];
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+    private int forcedPosition;
+    private long lastForceNanos;
+    private long nextSequence = 1;
+
+    public AuditLog(MeterRegistry meterRegistry,
+                    @Value("${app.audit.dir:./audit}") Path directory,
+                    @Value("${app.audit.segment-size:64MB}") DataSize segmentSize,
+                    @Value("${app.audit.ring-capacity:65536}") int ringCapacity,
+                    @Value("${app.audit.fsync-batch:1024}") int fsyncBatch,
+                    @Value("${app.audit.fsync-interval:100ms}") Duration fsyncInterval,
+                    @Value("${app.audit.retention:P90D}") Duration retention,
+                    @Value("${app.audit.shutdown-timeout:5s}") Duration shutdownTimeout) {
+        this.directory = directory;
+        // Whole records only, and within what a single mapping can address
+        long bytes = Math.clamp(segmentSize.toBytes(), MIN_SEGMENT_SIZE, Integer.MAX_VALUE);
+        this.segmentSize = (int) (bytes - bytes % AuditRecordCodec.RECORD_SIZE);
+        this.fsyncBatch = Math.max(1, fsyncBatch);
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.retention = retention;
+        this.shutdownTimeout = shutdownTimeout;
+        this.ring = new MpscRingBuffer<>(ringCapacity);
+        Gauge.builder(MetricsConstants.AUDIT_PENDING, ring, MpscRingBuffer::size)
+                .description(MetricsConstants.AUDIT_PENDING_DESC)
+                .register(meterRegistry);
+        this.appended = Counter.builder(MetricsConstants.AUDIT_APPENDED)
+                .description(MetricsConstants.AUDIT_APPENDED_DESC)
+                .register(meterRegistry);
+        this.dropped = Counter.builder(MetricsConstants.AUDIT_DROPPED)
+                .description(MetricsConstants.AUDIT_DROPPED_DESC)
+                .register(meterRegistry);
+        this.fsync = Timer.builder(MetricsConstants.AUDIT_FSYNC)
+                .description(MetricsConstants.AUDIT_FSYNC_DESC)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Never blocks; a full ring drops the record and counts it
+    public void append(AuthEventType type, String subject, String clientIp, String correlationId) {
+        if (!ring.offer(new AuditRecord(0, Instant.now(), type, subject, clientIp, correlationId))) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        while (running || !ring.isEmpty()) {
+            AuditRecord record = ring.poll();
+            if (record == null) {
+                if (position > forcedPosition && System.nanoTime() - lastForceNanos >= fsyncIntervalNanos) {
+                    force();
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                write(record);
+            } catch (IOException e) {
+                log.error("Failed to append audit record {}", record.type(), e);
+                dropped.increment();
+            }
+        }
+        force();
+    }
+
+    private void write(AuditRecord record) throws IOException {
+        if (position + AuditRecordCodec.RECORD_SIZE > segment.capacity()) {
+            roll();
+        }
+        AuditRecordCodec.encode(record, nextSequence++, scratch);
+        segment.put(position, scratch);
+        position += AuditRecordCodec.RECORD_SIZE;
+        appended.increment();
+        if (position - forcedPosition >= fsyncBatch * AuditRecordCodec.RECORD_SIZE) {
+            force();
+        }
+    }
+
+    private void force() {
+        if (position > forcedPosition) {
+            long start = System.nanoTime();
+            segment.force(forcedPosition, position - forcedPosition);
+            fsync.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            forcedPosition = position;
+        }
+        lastForceNanos = System.nanoTime();
+    }
+
+    // The old mapping is released by the GC; its data is already forced
+    private void roll() throws IOException {
+        force();
+        channel.close();
+        open(directory.resolve(AuditSegmentReader.segmentName(nextSequence)), 0, nextSequence);
+    }
+
+    private void open(Path file, int validRecords, long firstSequence) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), segmentSize);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size - size % AuditRecordCodec.RECORD_SIZE);
+        position = validRecords * AuditRecordCodec.RECORD_SIZE;
+        forcedPosition = position;
+        nextSequence = firstSequence + validRecords;
+    }
+
+    // Continues the newest segment after its last valid record; a torn record is overwritten
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = AuditSegmentReader.segments(directory);
+        if (segments.isEmpty()) {
+            open(directory.resolve(AuditSegmentReader.segmentName(1)), 0, 1);
+            return;
+        }
+        Path latest = segments.get(segments.size() - 1);
+        int valid = AuditSegmentReader.read(latest, record -> { });
+        open(latest, valid, AuditSegmentReader.firstSequenceOf(latest));
+        log.info("Resuming audit log at sequence {} in {}", nextSequence, latest.getFileName());
+    }
+
+    @Scheduled(fixedDelayString = "${app.audit.retention-check-interval:PT1H}")
+    public void deleteExpiredSegments() {
+        Instant cutoff = Instant.now().minus(retention);
+        try {
+            List<Path> segments = AuditSegmentReader.segments(directory);
+            // The newest segment is the one being written and is never deleted
+            for (Path segment : segments.subList(0, Math.max(0, segments.size() - 1))) {
+                if (Files.getLastModifiedTime(segment).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(segment);
+                    log.info("Deleted expired audit segment {}", segment.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete expired audit segments in {}", directory, e);
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open audit log in " + directory, e);
+        }
+        lastForceNanos = System.nanoTime();
+        running = true;
+        writer = Thread.ofPlatform().name("audit-log").daemon(true).start(this::drain);
+    }
+
+    // Stops after the web server has drained in-flight requests, so their records are written
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(shutdownTimeout.toMillis());
+            if (!writer.isAlive()) {
+                channel.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Failed to close audit segment", e);
+        }
+        if (!ring.isEmpty()) {
+            log.warn("Dropped {} audit records at shutdown", ring.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+    }
+}
@@ -0,0 +1,9 @@
+package com.possessor.loginapi.audit;
+
+import com.possessor.loginapi.enums.AuthEventType;
+
+import java.time.Instant;
+
+public record AuditRecord(long sequence, Instant timestamp, AuthEventType type, String subject,
+                          String clientIp, String correlationId) {
+}
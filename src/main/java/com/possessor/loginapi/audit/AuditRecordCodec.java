@@ -0,0 +1,98 @@
+package com.possessor.loginapi.audit;
+
+import com.possessor.loginapi.enums.AuthEventType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed 200-byte record layout, big-endian:
+ * <pre>
+ *   0  timestamp (epoch ms, 8)    8  sequence (8)     16 type ordinal (1)
+ *  17  subject length (1)        18  ip length (1)    19 correlation id length (1)
+ *  20  subject (64)              84  client ip (48)  132 correlation id (64)
+ * 196  CRC32 of bytes 0-195 (4)
+ * </pre>
+ * Strings are UTF-8 and truncated on a character boundary. A record whose CRC does not match, an
+ * all-zero tail of a preallocated segment included, marks the end of the valid data.
+ */
+final class AuditRecordCodec {
+
+    static final int RECORD_SIZE = 200;
+
+    private static final int TIMESTAMP = 0;
+    private static final int SEQUENCE = 8;
+    private static final int TYPE = 16;
+    private static final int SUBJECT_LENGTH = 17;
+    private static final int IP_LENGTH = 18;
+    private static final int CORRELATION_LENGTH = 19;
+    private static final int SUBJECT = 20;
+    private static final int IP = 84;
+    private static final int CORRELATION = 132;
+    private static final int CRC = 196;
+    private static final int SUBJECT_MAX = IP - SUBJECT;
+    private static final int IP_MAX = CORRELATION - IP;
+    private static final int CORRELATION_MAX = CRC - CORRELATION;
+    private static final AuthEventType[] TYPES = AuthEventType.values();
+
+    private AuditRecordCodec() {
+    }
+
+    static void encode(AuditRecord record, long sequence, byte[] into) {
+        ByteBuffer buffer = ByteBuffer.wrap(into);
+        buffer.putLong(TIMESTAMP, record.timestamp().toEpochMilli());
+        buffer.putLong(SEQUENCE, sequence);
+        buffer.put(TYPE, (byte) record.type().ordinal());
+        buffer.put(SUBJECT_LENGTH, putString(into, SUBJECT, SUBJECT_MAX, record.subject()));
+        buffer.put(IP_LENGTH, putString(into, IP, IP_MAX, record.clientIp()));
+        buffer.put(CORRELATION_LENGTH, putString(into, CORRELATION, CORRELATION_MAX, record.correlationId()));
+        buffer.putInt(CRC, crc(into));
+    }
+
+    // Returns null at the end of the valid data
+    static AuditRecord decode(byte[] from) {
+        ByteBuffer buffer = ByteBuffer.wrap(from);
+        long timestamp = buffer.getLong(TIMESTAMP);
+        if (timestamp == 0 || buffer.getInt(CRC) != crc(from)) {
+            return null;
+        }
+        int type = buffer.get(TYPE) & 0xFF;
+        return new AuditRecord(
+                buffer.getLong(SEQUENCE),
+                Instant.ofEpochMilli(timestamp),
+                type < TYPES.length ? TYPES[type] : null,
+                getString(from, SUBJECT, from[SUBJECT_LENGTH]),
+                getString(from, IP, from[IP_LENGTH]),
+                getString(from, CORRELATION, from[CORRELATION_LENGTH]));
+    }
+
+    private static byte putString(byte[] into, int offset, int max, String value) {
+        if (value == null) {
+            Arrays.fill(into, offset, offset + max, (byte) 0);
+            return 0;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, max);
+        // Never cut a multi-byte character in half
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        System.arraycopy(bytes, 0, into, offset, length);
+        Arrays.fill(into, offset + length, offset + max, (byte) 0);
+        return (byte) length;
+    }
+
+    private static String getString(byte[] from, int offset, byte length) {
+        int size = length & 0xFF;
+        return size == 0 ? null : new String(from, offset, size, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, CRC);
+        return (int) crc.getValue();
+    }
+}
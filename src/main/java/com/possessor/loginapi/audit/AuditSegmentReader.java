@@ -0,0 +1,68 @@
+package com.possessor.loginapi.audit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads audit segments. Safe to run against the live directory: a record is only visible once its
+ * CRC has been written, and reading stops at the first record that is not.
+ */
+public final class AuditSegmentReader {
+
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private AuditSegmentReader() {
+    }
+
+    // Oldest first; names embed the zero-padded first sequence, so name order is append order
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Returns the number of valid records read
+    public static int read(Path segment, Consumer<AuditRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] record = new byte[AuditRecordCodec.RECORD_SIZE];
+            int count = 0;
+            for (int offset = 0; offset + record.length <= buffer.capacity(); offset += record.length) {
+                buffer.get(offset, record);
+                AuditRecord decoded = AuditRecordCodec.decode(record);
+                if (decoded == null) {
+                    break;
+                }
+                consumer.accept(decoded);
+                count++;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.possessor.loginapi.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring for many producers and one consumer. A producer claims a slot by CAS on
+ * the tail and publishes into it with a release store; the consumer treats a still-empty slot as
+ * not yet published. Producers never wait: when the ring is full, offer returns false.
+ */
+final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(E element) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.setRelease((int) (claimed & mask), element);
+        return true;
+    }
+
+    // Consumer thread only
+    E poll() {
+        long current = head;
+        int index = (int) (current & mask);
+        E element = slots.getAcquire(index);
+        if (element == null) {
+            return null;
+        }
+        slots.setPlain(index, null);
+        head = current + 1;
+        return element;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
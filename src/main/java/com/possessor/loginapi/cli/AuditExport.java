@@ -0,0 +1,90 @@
+package com.possessor.loginapi.cli;
+
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.possessor.loginapi.audit.AuditSegmentReader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One-shot export of the audit log to newline-delimited JSON. A plain main over
+ * {@link AuditSegmentReader}: no application context, so nothing connects to Postgres or Redis, no
+ * scheduler runs and the live segment is only read, never reopened for writing or retention.
+ *
+ * <p>Options, as {@code --name=value}: {@code file} (required), {@code dir} (default
+ * {@code ./audit}), and {@code from} / {@code to} as ISO-8601 instants, e.g.
+ * {@code java -cp login-api.jar -Dloader.main=com.possessor.loginapi.cli.AuditExport
+ * org.springframework.boot.loader.launch.PropertiesLauncher --file=audit.ndjson --from=2025-01-01T00:00:00Z}.
+ */
+@Slf4j
+public final class AuditExport {
+
+    private AuditExport() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = parse(args);
+        if (!options.containsKey("file")) {
+            throw new IllegalArgumentException("Expected --file=<path>");
+        }
+        Path file = Path.of(options.get("file"));
+        Path directory = Path.of(options.getOrDefault("dir", "./audit"));
+        Instant from = options.containsKey("from") ? Instant.parse(options.get("from")) : null;
+        Instant to = options.containsKey("to") ? Instant.parse(options.get("to")) : null;
+        System.exit(export(directory, file, from, to) ? 0 : 1);
+    }
+
+    private static boolean export(Path directory, Path file, Instant from, Instant to) {
+        log.info("Exporting audit records from {} to {}", directory, file);
+        JsonMapper mapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        AtomicLong exported = new AtomicLong();
+        try (Writer writer = Files.newBufferedWriter(file);
+             SequenceWriter records = mapper.writer().withRootValueSeparator("\n").writeValues(writer)) {
+            for (Path segment : AuditSegmentReader.segments(directory)) {
+                AuditSegmentReader.read(segment, record -> {
+                    if ((from == null || !record.timestamp().isBefore(from))
+                            && (to == null || record.timestamp().isBefore(to))) {
+                        try {
+                            records.write(record);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        exported.incrementAndGet();
+                    }
+                });
+            }
+            records.flush();
+            writer.write('\n');
+            log.info("Exported {} audit record(s) to {}", exported.get(), file);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Audit export to {} failed", file, e);
+            return false;
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return values;
+    }
+}
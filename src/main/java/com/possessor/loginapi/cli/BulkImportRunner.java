@@ -0,0 +1,64 @@
+package com.possessor.loginapi.cli;
+
+import com.possessor.loginapi.enums.BulkImportFormat;
+import com.possessor.loginapi.service.BulkImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One-shot import from a file, e.g.
+ * {@code java -jar login-api.jar --spring.main.web-application-type=none --app.import.file=users.csv}.
+ * The application exits when the import finishes.
+ */
+@Component
+@ConditionalOnProperty("app.import.file")
+@RequiredArgsConstructor
+@Slf4j
+public class BulkImportRunner implements ApplicationRunner {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final BulkImportService bulkImportService;
+    private final ApplicationContext applicationContext;
+
+    @Value("${app.import.file}")
+    private Path file;
+
+    @Value("${app.import.format:CSV}")
+    private BulkImportFormat format;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Importing users from {} ({})", file, format);
+        AtomicLong rejected = new AtomicLong();
+        int exitCode = 0;
+        try {
+            bulkImportService.importUsers(
+                            DataBufferUtils.read(file, DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE), format)
+                    .doOnNext(result -> {
+                        rejected.addAndGet(result.getRejected());
+                        result.getRejectedRows().forEach(row ->
+                                log.warn("Rejected line {} ({}): {}", row.getLine(), row.getUsername(), row.getReason()));
+                    })
+                    .blockLast();
+            log.info("Import of {} finished, {} row(s) rejected", file, rejected.get());
+        } catch (RuntimeException e) {
+            log.error("Import of {} failed", file, e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+    }
+}
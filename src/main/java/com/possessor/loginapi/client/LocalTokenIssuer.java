@@ -0,0 +1,50 @@
+package com.possessor.loginapi.client;
+
+import com.possessor.loginapi.constants.ErrorMessages;
+import com.possessor.loginapi.dto.TokenResponse;
+import com.possessor.loginapi.exception.AuthenticationException;
+import com.possessor.loginapi.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mints token pairs in-process with the configured JWT key and expirations, removing the network
+ * hop to the token service from login and refresh.
+ */
+@Component
+@ConditionalOnProperty(name = "token.issuance.mode", havingValue = "local")
+@RequiredArgsConstructor
+@Slf4j
+public class LocalTokenIssuer implements TokenIssuer {
+    
+    private final JwtUtil jwtUtil;
+    
+    @Override
+    public Mono<TokenResponse> generateToken(String username, String email, int roles) {
+        return Mono.fromSupplier(() -> issue(username, roles))
+                .doOnSuccess(response -> log.debug("Token issued locally for user: {}", username));
+    }
+    
+    @Override
+    public Mono<TokenResponse> refreshToken(String refreshToken) {
+        return Mono.fromSupplier(() -> {
+            Claims claims = jwtUtil.parseValidClaims(refreshToken);
+            if (claims == null || !jwtUtil.isRefreshToken(claims)) {
+                throw new AuthenticationException(ErrorMessages.INVALID_REFRESH_TOKEN_ERROR);
+            }
+            return issue(claims.getSubject(), jwtUtil.extractRoles(claims));
+        });
+    }
+    
+    private TokenResponse issue(String username, int roles) {
+        return new TokenResponse(
+                jwtUtil.generateToken(username, roles),
+                jwtUtil.generateRefreshToken(username, roles),
+                "Bearer",
+                jwtUtil.getExpirationSeconds());
+    }
+}
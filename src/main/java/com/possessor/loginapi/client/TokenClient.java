@@ -1,45 +1,218 @@
 package com.possessor.loginapi.client;
 
+import com.possessor.loginapi.constants.ApiEndpoints;
+import com.possessor.loginapi.constants.MetricsConstants;
 import com.possessor.loginapi.dto.TokenRequest;
 import com.possessor.loginapi.dto.TokenResponse;
-import lombok.RequiredArgsConstructor;
+import com.possessor.loginapi.exception.TokenServiceUnavailableException;
+import com.possessor.loginapi.jfr.JfrEvents;
+import com.possessor.loginapi.support.Deadlines;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
+@ConditionalOnProperty(name = "token.issuance.mode", havingValue = "remote", matchIfMissing = true)
 @Slf4j
-public class TokenClient {
-    
-    private final WebClient.Builder webClientBuilder;
-    
-    @Value("${token.service.url:http://localhost:8081}")
-    private String tokenServiceUrl;
-    
-    public Mono<TokenResponse> generateToken(String username, String email) {
-        TokenRequest request = new TokenRequest(username, email);
-        
-        return webClientBuilder.build()
+public class TokenClient implements TokenIssuer {
+
+    private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final WebClient tokenServiceWebClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final Bulkhead bulkhead;
+    private final Timer latency;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final boolean hedgingEnabled;
+    private final double hedgePercentile;
+    private final Duration minHedgeDelay;
+    private final Duration maxHedgeDelay;
+    private final TokenRequestBatcher batcher;
+    private final Deadlines deadlines;
+    private volatile Duration hedgeDelay;
+    private volatile long hedgeDelayComputedAt;
+
+    public TokenClient(WebClient tokenServiceWebClient, CircuitBreaker authCircuitBreaker, Retry authRetry,
+                       Bulkhead authBulkhead, MeterRegistry meterRegistry, Deadlines deadlines,
+                       @Value("${token.service.hedging.enabled:false}") boolean hedgingEnabled,
+                       @Value("${token.service.hedging.percentile:0.95}") double hedgePercentile,
+                       @Value("${token.service.hedging.min-delay:20ms}") Duration minHedgeDelay,
+                       @Value("${token.service.hedging.max-delay:500ms}") Duration maxHedgeDelay,
+                       @Value("${token.service.batching.enabled:false}") boolean batchingEnabled,
+                       @Value("${token.service.batching.max-size:64}") int maxBatchSize,
+                       @Value("${token.service.batching.max-wait:5ms}") Duration maxBatchWait,
+                       @Value("${token.service.batching.max-in-flight:16}") int maxInFlightBatches) {
+        this.tokenServiceWebClient = tokenServiceWebClient;
+        this.circuitBreaker = authCircuitBreaker;
+        this.retry = authRetry;
+        this.bulkhead = authBulkhead;
+        this.deadlines = deadlines;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelay = minHedgeDelay;
+        this.maxHedgeDelay = maxHedgeDelay;
+        this.hedgeDelay = maxHedgeDelay;
+        this.latency = Timer.builder(MetricsConstants.TOKEN_CLIENT_LATENCY)
+                .description(MetricsConstants.TOKEN_CLIENT_LATENCY_DESC)
+                .publishPercentiles(hedgePercentile)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.hedgesSent = Counter.builder(MetricsConstants.TOKEN_CLIENT_HEDGE)
+                .description(MetricsConstants.TOKEN_CLIENT_HEDGE_DESC)
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder(MetricsConstants.TOKEN_CLIENT_HEDGE)
+                .description(MetricsConstants.TOKEN_CLIENT_HEDGE_DESC)
+                .tag("outcome", "won")
+                .register(meterRegistry);
+        this.batcher = batchingEnabled
+                ? new TokenRequestBatcher(this::generateTokens, maxBatchSize, maxBatchWait, maxInFlightBatches, meterRegistry)
+                : null;
+    }
+
+    @Override
+    public Mono<TokenResponse> generateToken(String username, String email, int roles) {
+        TokenRequest request = new TokenRequest(username, email, roles);
+        if (batcher != null) {
+            return deadlines.bound(Deadlines.TOKEN_SERVICE, batcher.submit(request))
+                    .doOnError(error -> log.warn("Failed to generate token for user: {} - {}", username, error.toString()));
+        }
+        Mono<TokenResponse> call = Mono.defer(() -> tokenServiceWebClient
                 .post()
-                .uri(tokenServiceUrl + "/api/auth/token")
+                .uri(ApiEndpoints.TOKEN_SERVICE_TOKEN)
                 .bodyValue(request)
                 .retrieve()
-                .bodyToMono(TokenResponse.class)
-                .doOnSuccess(response -> log.info("Token generated for user: {}", username))
-                .doOnError(error -> log.error("Failed to generate token for user: {}", username, error));
+                .bodyToMono(TokenResponse.class));
+
+        // Issuing a token twice is harmless, so only issuance is hedged
+        return deadlines.bound(Deadlines.TOKEN_SERVICE,
+                        protect(hedgingEnabled ? hedged("generate", call) : attempt("generate", call)))
+                .doOnSuccess(response -> log.debug("Token generated for user: {}", username))
+                .doOnError(error -> log.warn("Failed to generate token for user: {} - {}", username, error.toString()));
     }
-    
+
+    // One call for a whole batch; the breaker, retry and bulkhead see it as a single call
+    private Mono<List<TokenResponse>> generateTokens(List<TokenRequest> requests) {
+        Mono<List<TokenResponse>> call = Mono.defer(() -> tokenServiceWebClient
+                .post()
+                .uri(ApiEndpoints.TOKEN_SERVICE_TOKEN_BATCH)
+                .bodyValue(requests)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<TokenResponse>>() {}));
+
+        return protect(attempt("generate-batch", call))
+                .doOnSuccess(responses -> log.debug("Generated {} tokens in one batch", requests.size()));
+    }
+
+    @Override
     public Mono<TokenResponse> refreshToken(String refreshToken) {
-        return webClientBuilder.build()
+        Mono<TokenResponse> call = Mono.defer(() -> tokenServiceWebClient
                 .post()
-                .uri(tokenServiceUrl + "/api/auth/token/refresh")
+                .uri(ApiEndpoints.TOKEN_SERVICE_REFRESH)
                 .bodyValue(refreshToken)
                 .retrieve()
-                .bodyToMono(TokenResponse.class)
-                .doOnSuccess(response -> log.info("Token refreshed successfully"))
-                .doOnError(error -> log.error("Failed to refresh token", error));
+                .bodyToMono(TokenResponse.class));
+
+        return deadlines.bound(Deadlines.TOKEN_SERVICE, protect(attempt("refresh", call)))
+                .doOnSuccess(response -> log.debug("Token refreshed successfully"))
+                .doOnError(error -> log.warn("Failed to refresh token - {}", error.toString()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.dispose();
+        }
+    }
+
+    // Retry wraps the breaker so every attempt is counted and none is made while it is open. The
+    // caller's deadline bounds the whole chain, so a retry only ever gets the budget that is left
+    private <T> Mono<T> protect(Mono<T> call) {
+        return call
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry))
+                .onErrorMap(error -> error instanceof CallNotPermittedException || error instanceof BulkheadFullException,
+                        error -> new TokenServiceUnavailableException(error.getMessage(), error));
+    }
+
+    // Each attempt, hedges included, holds a bulkhead permit for its duration
+    private <T> Mono<T> attempt(String operation, Mono<T> call) {
+        return JfrEvents.tokenServiceCall(operation, Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doOnSuccess(response -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        })).transformDeferred(BulkheadOperator.of(bulkhead));
+    }
+
+    // A second attempt starts once the first has taken longer than the observed percentile;
+    // whichever answers first wins and the other is cancelled. A primary that fails before the
+    // hedge is sent cancels the pending hedge, so its error surfaces at once
+    private <T> Mono<T> hedged(String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            Sinks.One<Boolean> primaryFailed = Sinks.one();
+            Mono<T> primary = attempt(operation, call).doOnError(error -> primaryFailed.tryEmitValue(true));
+            Mono<T> hedge = Mono.delay(currentHedgeDelay())
+                    .takeUntilOther(primaryFailed.asMono())
+                    .doOnNext(tick -> hedgesSent.increment())
+                    .flatMap(tick -> attempt(operation, call))
+                    .doOnNext(response -> hedgesWon.increment());
+            return Mono.firstWithValue(primary, hedge)
+                    .onErrorMap(NoSuchElementException.class, TokenClient::firstFailure);
+        });
+    }
+
+    private Duration currentHedgeDelay() {
+        long now = System.nanoTime();
+        if (now - hedgeDelayComputedAt > HEDGE_DELAY_REFRESH_NANOS) {
+            hedgeDelayComputedAt = now;
+            double nanos = 0;
+            for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+                if (value.percentile() == hedgePercentile) {
+                    nanos = value.value(TimeUnit.NANOSECONDS);
+                }
+            }
+            Duration observed = Duration.ofNanos((long) nanos);
+            hedgeDelay = observed.compareTo(minHedgeDelay) < 0 ? minHedgeDelay
+                    : observed.compareTo(maxHedgeDelay) > 0 ? maxHedgeDelay
+                    : observed;
+        }
+        return hedgeDelay;
+    }
+
+    // firstWithValue reports "no source produced a value"; surface the primary's real error so
+    // the breaker and retry classify it correctly
+    private static Throwable firstFailure(NoSuchElementException error) {
+        if (error.getSuppressed().length > 0) {
+            return error.getSuppressed()[0];
+        }
+        if (error.getCause() != null) {
+            return Exceptions.unwrapMultiple(error.getCause()).get(0);
+        }
+        return error;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.possessor.loginapi.client;
+
+import com.possessor.loginapi.dto.TokenResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Issues and refreshes access/refresh token pairs. {@code token.issuance.mode} selects the remote
+ * token service ({@link TokenClient}, the default) or in-process signing ({@link LocalTokenIssuer}).
+ */
+public interface TokenIssuer {
+    
+    Mono<TokenResponse> generateToken(String username, String email, int roles);
+    
+    Mono<TokenResponse> refreshToken(String refreshToken);
+}
@@ -0,0 +1,146 @@
+package com.possessor.loginapi.client;
+
+import com.possessor.loginapi.constants.AuthConstants;
+import com.possessor.loginapi.constants.ErrorMessages;
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.dto.TokenRequest;
+import com.possessor.loginapi.dto.TokenResponse;
+import com.possessor.loginapi.exception.DeadlineExceededException;
+import com.possessor.loginapi.support.Deadline;
+import com.possessor.loginapi.support.Deadlines;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Collects concurrent token requests for up to {@code maxWait} or {@code maxBatchSize} items,
+ * sends them as one batch call and completes each caller's Mono with its own response. Responses
+ * are matched to requests by position. Callers that have given up by the time their batch is sent
+ * are left out of it, and the batch call carries the earliest remaining deadline of the rest.
+ */
+@Slf4j
+class TokenRequestBatcher {
+    
+    private final AtomicReference<FluxSink<Pending>> queue = new AtomicReference<>();
+    private final Function<List<TokenRequest>, Mono<List<TokenResponse>>> sendBatch;
+    private final DistributionSummary batchSize;
+    private final Timer batchWait;
+    private final Disposable subscription;
+    
+    TokenRequestBatcher(Function<List<TokenRequest>, Mono<List<TokenResponse>>> sendBatch, int maxBatchSize,
+                        Duration maxWait, int maxInFlightBatches, MeterRegistry meterRegistry) {
+        this.sendBatch = sendBatch;
+        this.batchSize = DistributionSummary.builder(MetricsConstants.TOKEN_CLIENT_BATCH_SIZE)
+                .description(MetricsConstants.TOKEN_CLIENT_BATCH_SIZE_DESC)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchWait = Timer.builder(MetricsConstants.TOKEN_CLIENT_BATCH_WAIT)
+                .description(MetricsConstants.TOKEN_CLIENT_BATCH_WAIT_DESC)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        // Flux.create's sink takes next() from any thread: concurrent callers are serialized through
+        // an MPSC queue instead of spinning. The fair bufferTimeout only flushes when a batch slot has
+        // asked for one, so with maxInFlightBatches outstanding requests wait in the queue instead of
+        // overflowing. Requests still queued when the pipeline stops are failed, not left hanging.
+        this.subscription = Flux.<Pending>create(queue::set)
+                .bufferTimeout(maxBatchSize, maxWait, true)
+                .flatMap(this::dispatch, maxInFlightBatches)
+                .doOnDiscard(Pending.class, pending -> pending.response().tryEmitError(stopped()))
+                .subscribe(null, error -> log.error("Token request batcher stopped", error));
+    }
+    
+    Mono<TokenResponse> submit(TokenRequest request) {
+        return Mono.deferContextual(context -> {
+            FluxSink<Pending> sink = queue.get();
+            if (sink.isCancelled()) {
+                return Mono.error(stopped());
+            }
+            Pending pending = new Pending(request, Sinks.one(), System.nanoTime(), Deadlines.deadlineOf(context),
+                    context.getOrDefault(AuthConstants.CORRELATION_ID_KEY, null));
+            sink.next(pending);
+            return pending.response().asMono();
+        });
+    }
+    
+    private Mono<Void> dispatch(List<Pending> queued) {
+        // A caller cancelled by its deadline has no subscriber left; issuing its token is wasted work
+        Map<Boolean, List<Pending>> wanted = queued.stream().collect(Collectors.partitioningBy(Pending::isWanted));
+        List<Pending> batch = wanted.get(true);
+        wanted.get(false).forEach(pending -> pending.response().tryEmitError(
+                new DeadlineExceededException(ErrorMessages.DEADLINE_EXCEEDED_ERROR + " waiting on " + Deadlines.TOKEN_SERVICE)));
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+        long now = System.nanoTime();
+        batchSize.record(batch.size());
+        batch.forEach(pending -> batchWait.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS));
+        
+        return sendBatch.apply(batch.stream().map(Pending::request).toList())
+                .contextWrite(context -> callerContext(context, batch))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                        "Token batch returned no responses for " + batch.size() + " requests")))
+                .doOnNext(responses -> {
+                    if (responses.size() != batch.size()) {
+                        throw new IllegalStateException("Token batch returned " + responses.size() +
+                                " responses for " + batch.size() + " requests");
+                    }
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).response().tryEmitValue(responses.get(i));
+                    }
+                })
+                .doOnError(error -> batch.forEach(pending -> pending.response().tryEmitError(error)))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+    
+    // The batch runs in the batcher's own subscription, so the callers' context is rebuilt for the
+    // token service headers: the earliest deadline, and the correlation ID when all callers share one
+    private static Context callerContext(Context context, List<Pending> batch) {
+        Deadline earliest = null;
+        for (Pending pending : batch) {
+            if (pending.deadline() != null && (earliest == null
+                    || pending.deadline().expiresAtNanos() - earliest.expiresAtNanos() < 0)) {
+                earliest = pending.deadline();
+            }
+        }
+        Set<String> correlationIds = new HashSet<>();
+        batch.forEach(pending -> correlationIds.add(pending.correlationId()));
+        Context caller = earliest != null ? context.put(AuthConstants.DEADLINE_KEY, earliest) : context;
+        String correlationId = correlationIds.size() == 1 ? correlationIds.iterator().next() : null;
+        return correlationId != null ? caller.put(AuthConstants.CORRELATION_ID_KEY, correlationId) : caller;
+    }
+    
+    private static IllegalStateException stopped() {
+        return new IllegalStateException("Token request batcher has stopped");
+    }
+    
+    void dispose() {
+        queue.get().complete();
+        subscription.dispose();
+    }
+    
+    private record Pending(TokenRequest request, Sinks.One<TokenResponse> response, long enqueuedAt,
+                           Deadline deadline, String correlationId) {
+        
+        private boolean isWanted() {
+            return response.currentSubscriberCount() > 0 && (deadline == null || !deadline.isExpired());
+        }
+    }
+}
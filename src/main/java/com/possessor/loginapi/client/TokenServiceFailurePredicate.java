@@ -0,0 +1,22 @@
+package com.possessor.loginapi.client;
+
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Counts only transport failures, timeouts and 5xx answers against the token service. A 4xx is a
+ * problem with the request itself, so it neither opens the breaker nor gets retried.
+ */
+public class TokenServiceFailurePredicate implements Predicate<Throwable> {
+    
+    @Override
+    public boolean test(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+}
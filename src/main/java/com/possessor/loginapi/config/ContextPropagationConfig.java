@@ -0,0 +1,29 @@
+package com.possessor.loginapi.config;
+
+import com.possessor.loginapi.constants.AuthConstants;
+import io.micrometer.context.ContextRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.MDC;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Maps Reactor context keys onto MDC entries. With {@code spring.reactor.context-propagation=auto}
+ * Reactor restores these around every operator that runs on behalf of a request, so plain
+ * {@code log.info} calls pick up the IDs without any per-call plumbing.
+ */
+@Configuration
+public class ContextPropagationConfig {
+    
+    @PostConstruct
+    public void registerMdcAccessors() {
+        registerMdc(AuthConstants.CORRELATION_ID_KEY);
+        registerMdc(AuthConstants.TRACE_ID_KEY);
+    }
+    
+    private static void registerMdc(String key) {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(key,
+                () -> MDC.get(key),
+                value -> MDC.put(key, value),
+                () -> MDC.remove(key));
+    }
+}
@@ -1,7 +1,252 @@
 package com.possessor.loginapi.config;
 
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.repository.ReadYourWritesTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import reactor.pool.PoolMetricsRecorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
+@EnableConfigurationProperties(R2dbcProperties.class)
+@Slf4j
 public class DatabaseConfig {
-}
\ No newline at end of file
+
+    public static final String POOL_NAME = "login-api";
+    public static final String REPLICA_POOL_PREFIX = "login-api-replica-";
+    public static final String SHARD_POOL_PREFIX = "login-api-shard-";
+
+    @Value("${app.db.statement-cache-size:256}")
+    private int statementCacheSize;
+
+    @Value("${app.db.statement-timeout:5s}")
+    private Duration statementTimeout;
+
+    @Value("${app.db.lock-wait-timeout:2s}")
+    private Duration lockWaitTimeout;
+
+    @Value("${app.db.pool.background-eviction-interval:30s}")
+    private Duration backgroundEvictionInterval;
+
+    @Value("${app.db.replicas.urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${app.db.replicas.max-lag:2s}")
+    private Duration replicaMaxLag;
+
+    @Value("${app.db.shards.urls:}")
+    private List<String> shardUrls;
+
+    @Bean(destroyMethod = "dispose")
+    public ReplicaSet replicaSet(R2dbcProperties properties, MeterRegistry meterRegistry) {
+        Map<String, MeteredConnectionFactory> replicas = new LinkedHashMap<>();
+        if (!activeUrls(shardUrls).isEmpty()) {
+            if (!activeUrls(replicaUrls).isEmpty()) {
+                log.warn("Read replicas are ignored while sharding is enabled");
+            }
+            return new ReplicaSet(replicas, replicaMaxLag, meterRegistry);
+        }
+        List<String> urls = activeUrls(replicaUrls);
+        for (int i = 0; i < urls.size(); i++) {
+            String name = REPLICA_POOL_PREFIX + i;
+            MeteredConnectionFactory replica = createPool(urls.get(i), name, properties, meterRegistry);
+            new ConnectionPoolMetrics(replica.unwrap(), name, Tags.empty()).bindTo(meterRegistry);
+            replicas.put(name, replica);
+        }
+        return new ReplicaSet(replicas, replicaMaxLag, meterRegistry);
+    }
+
+    // Without replicas the metered primary pool is the ConnectionFactory bean and Boot's
+    // ConnectionPoolMetricsAutoConfiguration binds its gauges (acquired, idle, pending) by
+    // unwrapping it. The routing factory hides the pools from Boot, so they are bound here.
+    @Bean(destroyMethod = "dispose")
+    public ConnectionFactory connectionFactory(R2dbcProperties properties, MeterRegistry meterRegistry,
+                                               ReplicaSet replicaSet, ReadYourWritesTracker readYourWritesTracker) {
+        MeteredConnectionFactory primary = createPool(properties.getUrl(), POOL_NAME, properties, meterRegistry);
+        List<String> shards = activeUrls(shardUrls);
+        if (!shards.isEmpty()) {
+            new ConnectionPoolMetrics(primary.unwrap(), POOL_NAME, Tags.empty()).bindTo(meterRegistry);
+            List<MeteredConnectionFactory> shardPools = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                String name = SHARD_POOL_PREFIX + i;
+                MeteredConnectionFactory shard = createPool(shards.get(i), name, properties, meterRegistry);
+                new ConnectionPoolMetrics(shard.unwrap(), name, Tags.empty()).bindTo(meterRegistry);
+                shardPools.add(shard);
+            }
+            ShardRoutingConnectionFactory routing = new ShardRoutingConnectionFactory(primary, shardPools);
+            routing.afterPropertiesSet();
+            log.info("Username-hash sharding enabled across {} shard(s)", shardPools.size());
+            return routing;
+        }
+        if (replicaSet.isEmpty()) {
+            return primary;
+        }
+
+        new ConnectionPoolMetrics(primary.unwrap(), POOL_NAME, Tags.empty()).bindTo(meterRegistry);
+        ReadWriteRoutingConnectionFactory routing =
+                new ReadWriteRoutingConnectionFactory(primary, replicaSet, readYourWritesTracker);
+        routing.afterPropertiesSet();
+        log.info("Read/write routing enabled with {} replica(s), max lag {}", replicaSet.size(), replicaMaxLag);
+        return routing;
+    }
+
+    private static List<String> activeUrls(List<String> urls) {
+        return urls.stream().map(String::trim).filter(StringUtils::hasText).toList();
+    }
+
+    private MeteredConnectionFactory createPool(String url, String poolName, R2dbcProperties properties,
+                                                MeterRegistry meterRegistry) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(Option.valueOf("preparedStatementCacheQueries"), statementCacheSize)
+                .option(Option.valueOf("statementTimeout"), statementTimeout)
+                .option(Option.valueOf("lockWaitTimeout"), lockWaitTimeout);
+        if (StringUtils.hasText(properties.getUsername())) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (StringUtils.hasText(properties.getPassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        properties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options.build());
+
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder poolConfig = ConnectionPoolConfiguration.builder(connectionFactory)
+                .name(poolName)
+                .backgroundEvictionInterval(backgroundEvictionInterval)
+                .metricsRecorder(new MicrometerPoolMetricsRecorder(meterRegistry, poolName));
+        PropertyMapper map = PropertyMapper.get();
+        map.from(pool.getInitialSize()).to(poolConfig::initialSize);
+        map.from(pool.getMaxSize()).to(poolConfig::maxSize);
+        map.from(pool.getMinIdle()).to(poolConfig::minIdle);
+        map.from(pool.getAcquireRetry()).to(poolConfig::acquireRetry);
+        map.from(pool.getMaxIdleTime()).whenNonNull().to(poolConfig::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).whenNonNull().to(poolConfig::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).whenNonNull().to(poolConfig::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).whenNonNull().to(poolConfig::maxCreateConnectionTime);
+        map.from(pool.getMaxValidationTime()).whenNonNull().to(poolConfig::maxValidationTime);
+        map.from(pool.getValidationDepth()).whenNonNull().to(poolConfig::validationDepth);
+        map.from(pool.getValidationQuery()).whenHasText().to(poolConfig::validationQuery);
+
+        log.info("R2DBC pool '{}' configured: maxSize={}, statementCacheSize={}, statementTimeout={}",
+                poolName, pool.getMaxSize(), statementCacheSize, statementTimeout);
+        return new MeteredConnectionFactory(new ConnectionPool(poolConfig.build()), poolName, meterRegistry);
+    }
+
+    static final class MicrometerPoolMetricsRecorder implements PoolMetricsRecorder {
+
+        private final Timer allocationSuccess;
+        private final Timer allocationFailure;
+        private final Timer resetLatency;
+        private final Timer destroyLatency;
+        private final Timer idleTime;
+        private final Timer lifetime;
+        private final Counter recycled;
+        private final Counter slowPath;
+        private final Counter fastPath;
+
+        MicrometerPoolMetricsRecorder(MeterRegistry meterRegistry, String poolName) {
+            this.allocationSuccess = allocationTimer(meterRegistry, poolName, "success");
+            this.allocationFailure = allocationTimer(meterRegistry, poolName, "failure");
+            this.resetLatency = Timer.builder(MetricsConstants.DB_POOL_RESET)
+                    .tag("name", poolName)
+                    .register(meterRegistry);
+            this.destroyLatency = Timer.builder(MetricsConstants.DB_POOL_DESTROY)
+                    .tag("name", poolName)
+                    .register(meterRegistry);
+            this.idleTime = Timer.builder(MetricsConstants.DB_POOL_IDLE_TIME)
+                    .tag("name", poolName)
+                    .register(meterRegistry);
+            this.lifetime = Timer.builder(MetricsConstants.DB_POOL_LIFETIME)
+                    .tag("name", poolName)
+                    .register(meterRegistry);
+            this.recycled = Counter.builder(MetricsConstants.DB_POOL_RECYCLED)
+                    .tag("name", poolName)
+                    .register(meterRegistry);
+            this.slowPath = Counter.builder(MetricsConstants.DB_POOL_ACQUIRE_PATH)
+                    .tag("name", poolName)
+                    .tag("path", "slow")
+                    .register(meterRegistry);
+            this.fastPath = Counter.builder(MetricsConstants.DB_POOL_ACQUIRE_PATH)
+                    .tag("name", poolName)
+                    .tag("path", "fast")
+                    .register(meterRegistry);
+        }
+
+        private static Timer allocationTimer(MeterRegistry meterRegistry, String poolName, String outcome) {
+            return Timer.builder(MetricsConstants.DB_POOL_ALLOCATION)
+                    .description(MetricsConstants.DB_POOL_ALLOCATION_DESC)
+                    .tag("name", poolName)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void recordAllocationSuccessAndLatency(long latencyMs) {
+            allocationSuccess.record(latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordAllocationFailureAndLatency(long latencyMs) {
+            allocationFailure.record(latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordResetLatency(long latencyMs) {
+            resetLatency.record(latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordDestroyLatency(long latencyMs) {
+            destroyLatency.record(latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordRecycled() {
+            recycled.increment();
+        }
+
+        @Override
+        public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+            lifetime.record(millisecondsSinceAllocation, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordIdleTime(long millisecondsIdle) {
+            idleTime.record(millisecondsIdle, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordSlowPath() {
+            slowPath.increment();
+        }
+
+        @Override
+        public void recordFastPath() {
+            fastPath.increment();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.possessor.loginapi.config;
+
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.jfr.JfrEvents;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+public class MeteredConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+    
+    private final ConnectionPool pool;
+    private final Timer acquireSuccess;
+    private final Timer acquireFailure;
+    
+    public MeteredConnectionFactory(ConnectionPool pool, String poolName, MeterRegistry meterRegistry) {
+        this.pool = pool;
+        this.acquireSuccess = acquireTimer(meterRegistry, poolName, "success");
+        this.acquireFailure = acquireTimer(meterRegistry, poolName, "failure");
+    }
+    
+    private static Timer acquireTimer(MeterRegistry meterRegistry, String poolName, String outcome) {
+        return Timer.builder(MetricsConstants.DB_POOL_ACQUIRE)
+                .description(MetricsConstants.DB_POOL_ACQUIRE_DESC)
+                .tag("name", poolName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(Duration.ofMillis(1), Duration.ofMillis(5),
+                        Duration.ofMillis(25), Duration.ofMillis(100), Duration.ofMillis(500))
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return pool.create()
+                    .map(JfrEvents::recordQueries)
+                    .doOnSuccess(connection -> acquireSuccess.record(Duration.ofNanos(System.nanoTime() - start)))
+                    .doOnError(error -> acquireFailure.record(Duration.ofNanos(System.nanoTime() - start)));
+        });
+    }
+    
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+    
+    @Override
+    public ConnectionPool unwrap() {
+        return pool;
+    }
+    
+    public void dispose() {
+        pool.dispose();
+    }
+}
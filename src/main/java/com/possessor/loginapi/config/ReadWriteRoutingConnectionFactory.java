@@ -0,0 +1,49 @@
+package com.possessor.loginapi.config;
+
+import com.possessor.loginapi.repository.ReadRouting;
+import com.possessor.loginapi.repository.ReadYourWritesTracker;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Sends connections requested under a {@link ReadRouting} read-only hint to a healthy replica and
+ * everything else to the primary. Sessions that wrote recently are pinned to the primary so they
+ * always read their own writes.
+ */
+public class ReadWriteRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+    
+    private final MeteredConnectionFactory primary;
+    private final ReplicaSet replicaSet;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    
+    public ReadWriteRoutingConnectionFactory(MeteredConnectionFactory primary, ReplicaSet replicaSet,
+                                             ReadYourWritesTracker readYourWritesTracker) {
+        this.primary = primary;
+        this.replicaSet = replicaSet;
+        this.readYourWritesTracker = readYourWritesTracker;
+        setDefaultTargetConnectionFactory(primary);
+        setTargetConnectionFactories(replicaSet.targets());
+        setLenientFallback(true);
+    }
+    
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> {
+            Optional<String> session = context.getOrEmpty(ReadRouting.READ_ONLY_SESSION_KEY);
+            if (session.isEmpty() || readYourWritesTracker.hasRecentWrite(session.get())) {
+                readYourWritesTracker.recordRoute(false);
+                return Mono.empty();
+            }
+            
+            Optional<String> replica = replicaSet.nextHealthy();
+            readYourWritesTracker.recordRoute(replica.isPresent());
+            return Mono.justOrEmpty(replica);
+        });
+    }
+    
+    public void dispose() {
+        primary.dispose();
+    }
+}
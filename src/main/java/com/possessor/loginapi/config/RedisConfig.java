@@ -1,9 +1,15 @@
 package com.possessor.loginapi.config;
 
+import com.possessor.loginapi.fault.FaultInjector;
+import com.possessor.loginapi.jfr.JfrCommandLatencyRecorder;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
@@ -18,13 +24,26 @@ public class RedisConfig {
     @Value("${spring.redis.port:6379}")
     private int redisPort;
     
+    // Lettuce times each command for the Redis JFR event; building the event is skipped while no
+    // recording has it enabled
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources() {
+        return ClientResources.builder()
+            .commandLatencyRecorder(new JfrCommandLatencyRecorder())
+            .build();
+    }
+    
     @Bean
-    public ReactiveRedisConnectionFactory reactiveRedisConnectionFactory() {
-        return new LettuceConnectionFactory(redisHost, redisPort);
+    public ReactiveRedisConnectionFactory reactiveRedisConnectionFactory(ClientResources lettuceClientResources) {
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+            .clientResources(lettuceClientResources)
+            .build();
+        return new LettuceConnectionFactory(new RedisStandaloneConfiguration(redisHost, redisPort), clientConfiguration);
     }
     
     @Bean
-    public ReactiveRedisTemplate<String, String> reactiveRedisTemplate(ReactiveRedisConnectionFactory factory) {
+    public ReactiveRedisTemplate<String, String> reactiveRedisTemplate(ReactiveRedisConnectionFactory factory,
+                                                                       ObjectProvider<FaultInjector> faultInjector) {
         StringRedisSerializer serializer = new StringRedisSerializer();
         RedisSerializationContext<String, String> context = RedisSerializationContext
             .<String, String>newSerializationContext()
@@ -32,6 +51,7 @@ public class RedisConfig {
             .value(serializer)
             .build();
         
-        return new ReactiveRedisTemplate<>(factory, context);
+        FaultInjector injector = faultInjector.getIfAvailable();
+        return new ReactiveRedisTemplate<>(injector != null ? injector.wrap(factory) : factory, context);
     }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.possessor.loginapi.config;
+
+import com.possessor.loginapi.constants.MetricsConstants;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public class ReplicaSet {
+    
+    private static final String LAG_QUERY = "SELECT (CASE WHEN pg_is_in_recovery() " +
+            "THEN COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) " +
+            "ELSE 0 END)::float8";
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(2);
+    
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final AtomicInteger cursor = new AtomicInteger();
+    
+    public ReplicaSet(Map<String, MeteredConnectionFactory> factories, Duration maxLag, MeterRegistry meterRegistry) {
+        this.maxLag = maxLag;
+        factories.forEach((name, factory) -> {
+            Replica replica = new Replica(name, factory);
+            Gauge.builder(MetricsConstants.DB_REPLICA_LAG, replica.lagMillis, AtomicLong::get)
+                    .description(MetricsConstants.DB_REPLICA_LAG_DESC)
+                    .tag("name", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder(MetricsConstants.DB_REPLICA_HEALTHY, replica, r -> r.healthy ? 1 : 0)
+                    .tag("name", name)
+                    .register(meterRegistry);
+            replicas.add(replica);
+        });
+    }
+    
+    public boolean isEmpty() {
+        return replicas.isEmpty();
+    }
+    
+    public int size() {
+        return replicas.size();
+    }
+    
+    public Map<String, ConnectionFactory> targets() {
+        Map<String, ConnectionFactory> targets = new LinkedHashMap<>();
+        replicas.forEach(replica -> targets.put(replica.name, replica.factory));
+        return targets;
+    }
+    
+    // Round-robin over replicas whose last probe was within the lag budget
+    public Optional<String> nextHealthy() {
+        int size = replicas.size();
+        int start = Math.floorMod(cursor.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return Optional.of(replica.name);
+            }
+        }
+        return Optional.empty();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.db.replicas.lag-check-interval:PT5S}")
+    public Mono<Void> checkLag() {
+        return Flux.fromIterable(replicas)
+                .flatMap(this::probe)
+                .then();
+    }
+    
+    private Mono<Void> probe(Replica replica) {
+        return Mono.usingWhen(replica.factory.create(),
+                        connection -> Mono.from(connection.createStatement(LAG_QUERY).execute())
+                                .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Double.class)))),
+                        Connection::close)
+                .timeout(PROBE_TIMEOUT)
+                .doOnNext(lag -> {
+                    long lagMillis = lag.longValue();
+                    boolean healthy = lagMillis <= maxLag.toMillis();
+                    if (healthy != replica.healthy) {
+                        log.warn("Replica {} is now {} (lag {}ms)", replica.name, healthy ? "in rotation" : "out of rotation", lagMillis);
+                    }
+                    replica.lagMillis.set(lagMillis);
+                    replica.healthy = healthy;
+                })
+                .onErrorResume(error -> {
+                    if (replica.healthy) {
+                        log.warn("Replica {} lag probe failed, removing from rotation: {}", replica.name, error.getMessage());
+                    }
+                    replica.healthy = false;
+                    return Mono.empty();
+                })
+                .then();
+    }
+    
+    public void dispose() {
+        replicas.forEach(replica -> replica.factory.dispose());
+    }
+    
+    private static final class Replica {
+        private final String name;
+        private final MeteredConnectionFactory factory;
+        private final AtomicLong lagMillis = new AtomicLong();
+        // Out of rotation until the first probe shows it within the lag budget
+        private volatile boolean healthy;
+        
+        private Replica(String name, MeteredConnectionFactory factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+    }
+}
@@ -1,36 +1,35 @@
 package com.possessor.loginapi.config;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.retry.Retry;
-import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.time.Duration;
-
+/**
+ * Token service resilience instances. They come from the auto-configured registries, so they pick
+ * up the resilience4j.*.instances.auth-service properties and publish state and call metrics.
+ */
 @Configuration
 public class ResilienceConfig {
     
+    public static final String AUTH_SERVICE = "auth-service";
+    
+    @Bean
+    public CircuitBreaker authCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return circuitBreakerRegistry.circuitBreaker(AUTH_SERVICE);
+    }
+    
     @Bean
-    public CircuitBreaker authCircuitBreaker() {
-        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
-            .failureRateThreshold(50)
-            .waitDurationInOpenState(Duration.ofSeconds(30))
-            .slidingWindowSize(10)
-            .minimumNumberOfCalls(5)
-            .build();
-        
-        return CircuitBreaker.of("auth-service", config);
+    public Retry authRetry(RetryRegistry retryRegistry) {
+        return retryRegistry.retry(AUTH_SERVICE);
     }
     
     @Bean
-    public Retry authRetry() {
-        RetryConfig config = RetryConfig.custom()
-            .maxAttempts(3)
-            .waitDuration(Duration.ofMillis(500))
-            .build();
-        
-        return Retry.of("auth-service", config);
+    public Bulkhead authBulkhead(BulkheadRegistry bulkheadRegistry) {
+        return bulkheadRegistry.bulkhead(AUTH_SERVICE);
     }
-}
\ No newline at end of file
+}
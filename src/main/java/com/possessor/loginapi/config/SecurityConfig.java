@@ -4,8 +4,10 @@ import com.possessor.loginapi.constants.ApiEndpoints;
 import com.possessor.loginapi.filter.RateLimitFilter;
 import com.possessor.loginapi.filter.RequestSizeLimitFilter;
 import com.possessor.loginapi.filter.TokenBlacklistFilter;
+import com.possessor.loginapi.jfr.JfrPasswordEncoder;
 import com.possessor.loginapi.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
@@ -22,14 +24,20 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
 @RequiredArgsConstructor
 public class SecurityConfig {
     
+    private static final int BCRYPT_COST = 12;
+    
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final RateLimitFilter rateLimitFilter;
     private final RequestSizeLimitFilter requestSizeLimitFilter;
     private final TokenBlacklistFilter tokenBlacklistFilter;
     
+    // The stand-in is only opened up where its controller exists
+    @Value("${token.service.stub.enabled:false}")
+    private boolean tokenServiceStubEnabled;
+    
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+        return new JfrPasswordEncoder(new BCryptPasswordEncoder(BCRYPT_COST), BCRYPT_COST);
     }
     
     @Bean
@@ -38,11 +46,16 @@ public class SecurityConfig {
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
                 .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
-                .authorizeExchange(exchanges -> exchanges
-                        .pathMatchers(ApiEndpoints.AUTH_BASE + "/v1/**", ApiEndpoints.FULL_ACTUATOR_HEALTH, ApiEndpoints.FULL_ACTUATOR_INFO).permitAll()
-                        .pathMatchers(ApiEndpoints.ACTUATOR_BASE + "/**").hasRole("ADMIN")
-                        .anyExchange().authenticated()
-                )
+                .authorizeExchange(exchanges -> {
+                    exchanges.pathMatchers(ApiEndpoints.AUTH_BASE + "/v1/**", ApiEndpoints.FULL_ACTUATOR_HEALTH, ApiEndpoints.FULL_ACTUATOR_INFO).permitAll();
+                    if (tokenServiceStubEnabled) {
+                        exchanges.pathMatchers(ApiEndpoints.TOKEN_SERVICE_STUB_BASE + "/**").permitAll();
+                    }
+                    exchanges
+                            .pathMatchers(ApiEndpoints.ACTUATOR_BASE + "/**").hasRole("ADMIN")
+                            .pathMatchers(ApiEndpoints.ADMIN_BASE + "/**").hasRole("ADMIN")
+                            .anyExchange().authenticated();
+                })
                 .addFilterBefore(requestSizeLimitFilter, SecurityWebFiltersOrder.AUTHORIZATION)
                 .addFilterBefore(rateLimitFilter, SecurityWebFiltersOrder.AUTHENTICATION)
                 .addFilterBefore(tokenBlacklistFilter, SecurityWebFiltersOrder.AUTHENTICATION)
@@ -0,0 +1,41 @@
+package com.possessor.loginapi.config;
+
+import com.possessor.loginapi.repository.ShardRouter;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the shard pool named by the {@link ShardRouter} hint in the Reactor context. Connections
+ * requested without a hint go to the primary, which holds the email directory and bucket map.
+ */
+public class ShardRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+    
+    private final MeteredConnectionFactory directory;
+    private final List<MeteredConnectionFactory> shards;
+    
+    public ShardRoutingConnectionFactory(MeteredConnectionFactory directory, List<MeteredConnectionFactory> shards) {
+        this.directory = directory;
+        this.shards = shards;
+        Map<Integer, MeteredConnectionFactory> targets = new LinkedHashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setDefaultTargetConnectionFactory(directory);
+        setTargetConnectionFactories(targets);
+        setLenientFallback(false);
+    }
+    
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(ShardRouter.SHARD_KEY)));
+    }
+    
+    public void dispose() {
+        directory.dispose();
+        shards.forEach(MeteredConnectionFactory::dispose);
+    }
+}
@@ -1,14 +1,127 @@
 package com.possessor.loginapi.config;
 
+import com.possessor.loginapi.constants.AuthConstants;
+import com.possessor.loginapi.fault.FaultInjector;
+import com.possessor.loginapi.fault.FaultTarget;
+import com.possessor.loginapi.support.Deadline;
+import com.possessor.loginapi.support.Deadlines;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.function.Function;
 
 @Configuration
+@Slf4j
 public class WebClientConfig {
     
+    public static final String TOKEN_SERVICE_POOL = "token-service";
+    
+    @Value("${token.service.url:http://localhost:8081}")
+    private String tokenServiceUrl;
+    
+    @Value("${token.service.pool.max-connections:200}")
+    private int maxConnections;
+    
+    @Value("${token.service.pool.pending-acquire-max-count:1000}")
+    private int pendingAcquireMaxCount;
+    
+    @Value("${token.service.pool.pending-acquire-timeout:2s}")
+    private Duration pendingAcquireTimeout;
+    
+    @Value("${token.service.pool.max-idle-time:30s}")
+    private Duration maxIdleTime;
+    
+    @Value("${token.service.pool.max-life-time:5m}")
+    private Duration maxLifeTime;
+    
+    @Value("${token.service.pool.evict-interval:30s}")
+    private Duration evictInterval;
+    
+    @Value("${token.service.connect-timeout:1s}")
+    private Duration connectTimeout;
+    
+    @Value("${token.service.response-timeout:2s}")
+    private Duration responseTimeout;
+    
+    @Value("${token.service.h2c:false}")
+    private boolean h2c;
+    
     @Bean
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
-}
\ No newline at end of file
+    
+    // Idle connections are closed before the token service's keep-alive timeout so a request
+    // never lands on a socket the server is about to drop
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider tokenServiceConnectionProvider() {
+        return ConnectionProvider.builder(TOKEN_SERVICE_POOL)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .lifo()
+                .metrics(true)
+                .build();
+    }
+    
+    // One shared client for the token service; building a client per call discards the pool
+    @Bean
+    public WebClient tokenServiceWebClient(WebClient.Builder webClientBuilder,
+                                           ConnectionProvider tokenServiceConnectionProvider,
+                                           ObjectProvider<FaultInjector> faultInjector) {
+        HttpClient httpClient = HttpClient.create(tokenServiceConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .keepAlive(true)
+                // Every path TokenClient calls is fixed (token, batch, refresh), so the uri tag stays low-cardinality
+                .metrics(true, Function.identity());
+        if (h2c) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        log.info("Token service client: url={}, maxConnections={}, responseTimeout={}, h2c={}",
+                tokenServiceUrl, maxConnections, responseTimeout, h2c);
+        WebClient.Builder builder = webClientBuilder.clone();
+        // Faults are injected below the breaker, retry and bulkhead so those see them as real failures
+        faultInjector.ifAvailable(injector -> builder.filter((request, next) ->
+                injector.apply(FaultTarget.TOKEN_SERVICE, next.exchange(request))));
+        return builder
+                .baseUrl(tokenServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // Forward the caller's correlation ID so both services' logs can be joined, and what is
+                // left of its deadline so the token service can give up when the answer is no longer wanted
+                .filter((request, next) -> Mono.deferContextual(context -> next.exchange(withCallerContext(request, context))))
+                .build();
+    }
+    
+    private static ClientRequest withCallerContext(ClientRequest request, ContextView context) {
+        Deadline deadline = Deadlines.deadlineOf(context);
+        if (!context.hasKey(AuthConstants.CORRELATION_ID_KEY) && deadline == null) {
+            return request;
+        }
+        ClientRequest.Builder builder = ClientRequest.from(request);
+        if (context.hasKey(AuthConstants.CORRELATION_ID_KEY)) {
+            builder.header(AuthConstants.CORRELATION_ID_HEADER, context.get(AuthConstants.CORRELATION_ID_KEY));
+        }
+        if (deadline != null) {
+            builder.header(AuthConstants.REQUEST_TIMEOUT_HEADER, Long.toString(Math.max(1, deadline.remaining().toMillis())));
+        }
+        return builder.build();
+    }
+}
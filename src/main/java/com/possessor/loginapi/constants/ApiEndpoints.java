@@ -8,7 +8,9 @@ public final class ApiEndpoints {
     public static final String API_BASE = "/api";
     public static final String AUTH_BASE = API_BASE + "/auth";
     public static final String USER_BASE = API_BASE + "/user";
+    public static final String ADMIN_BASE = API_BASE + "/admin";
     public static final String ACTUATOR_BASE = "/actuator";
+    public static final String TOKEN_SERVICE_STUB_BASE = "/stub/token-service";
     
     // Auth endpoints
     public static final String AUTH_REGISTER = "/register";
@@ -28,6 +30,16 @@ public final class ApiEndpoints {
     public static final String USER_PASSWORD = "/password";
     public static final String USER_ACCOUNT = "/account";
     
+    // Admin endpoints
+    public static final String ADMIN_USERS = "/users";
+    public static final String ADMIN_USERS_EXPORT = "/users/export";
+    public static final String ADMIN_USERS_IMPORT = "/users/import";
+    
+    // Token service endpoints (remote service, mirrored by the local stand-in)
+    public static final String TOKEN_SERVICE_TOKEN = "/api/auth/token";
+    public static final String TOKEN_SERVICE_TOKEN_BATCH = "/api/auth/token/batch";
+    public static final String TOKEN_SERVICE_REFRESH = "/api/auth/token/refresh";
+    
     // Actuator endpoints
     public static final String ACTUATOR_HEALTH = "/health";
     public static final String ACTUATOR_INFO = "/info";
@@ -51,6 +63,8 @@ public final class ApiEndpoints {
     public static final String FULL_USER_PASSWORD = USER_BASE + USER_PASSWORD;
     public static final String FULL_USER_ACCOUNT = USER_BASE + USER_ACCOUNT;
     
+    public static final String FULL_ADMIN_USERS_IMPORT = ADMIN_BASE + ADMIN_USERS_IMPORT;
+    
     public static final String FULL_ACTUATOR_HEALTH = ACTUATOR_BASE + ACTUATOR_HEALTH;
     public static final String FULL_ACTUATOR_INFO = ACTUATOR_BASE + ACTUATOR_INFO;
     public static final String FULL_ACTUATOR_METRICS = ACTUATOR_BASE + ACTUATOR_METRICS;
@@ -11,6 +11,17 @@ public final class AuthConstants {
     
     // Token Expiry
     public static final int RESET_TOKEN_EXPIRY_HOURS = 1;
+    public static final int VERIFICATION_TOKEN_EXPIRY_HOURS = 24;
+    
+    // Request Correlation
+    public static final String CORRELATION_ID_HEADER = "X-Correlation-ID";
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final String CORRELATION_ID_KEY = "correlationId";
+    public static final String TRACE_ID_KEY = "traceId";
+    
+    // Request Deadlines
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+    public static final String DEADLINE_KEY = "deadline";
     
     // Error Messages
     public static final String USERNAME_EXISTS_ERROR = "Username already exists";
@@ -8,9 +8,12 @@ public final class ErrorMessages {
     public static final String INVALID_RESET_TOKEN_ERROR = "Invalid or expired reset token";
     public static final String RESET_TOKEN_EXPIRED_ERROR = "Reset token has expired";
     public static final String INVALID_VERIFICATION_TOKEN_ERROR = "Invalid verification token";
+    public static final String INVALID_REFRESH_TOKEN_ERROR = "Invalid or expired refresh token";
     public static final String USER_NOT_FOUND_ERROR = "User not found";
     public static final String EMAIL_SEND_FAILED_ERROR = "Failed to send email";
     public static final String EMAIL_SERVICE_UNAVAILABLE_ERROR = "Email service temporarily unavailable";
+    public static final String SHARD_MOVING_ERROR = "Account data is being relocated, retry shortly";
+    public static final String DEADLINE_EXCEEDED_ERROR = "Request deadline exceeded";
     
     private ErrorMessages() {
         throw new UnsupportedOperationException("Utility class");
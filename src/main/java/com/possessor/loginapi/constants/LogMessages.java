@@ -15,10 +15,10 @@ public final class LogMessages {
     
     // Password Reset Log Messages
     public static final String PASSWORD_RESET_REQUESTED = "Password reset requested for email: {}";
-    public static final String PASSWORD_RESET_COMPLETED = "Password reset completed for token: {}";
+    public static final String PASSWORD_RESET_COMPLETED = "Password reset completed for user: {}";
     
     // Email Verification Log Messages
-    public static final String EMAIL_VERIFIED = "Email verified for token: {}";
+    public static final String EMAIL_VERIFIED = "Email verified for user: {}";
     
     private LogMessages() {
         throw new UnsupportedOperationException("Utility class");
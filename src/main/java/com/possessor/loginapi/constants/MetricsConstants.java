@@ -21,6 +21,58 @@ public final class MetricsConstants {
     public static final String AUTH_CHECK_EMAIL = "auth.check.email";
     public static final String AUTH_VERIFY_EMAIL = "auth.verify.email";
     public static final String AUTH_RESEND_VERIFICATION = "auth.resend.verification";
+    public static final String AUTH_REFRESH_REUSE = "auth.refresh.reuse";
+    public static final String LOGIN_ACTIVITY_BUFFER_SIZE = "auth.login.activity.buffer.size";
+    public static final String LOGIN_ACTIVITY_FLUSH = "auth.login.activity.flush";
+    public static final String LOGIN_ACTIVITY_FLUSHED = "auth.login.activity.flushed";
+    public static final String LOGIN_ACTIVITY_DROPPED = "auth.login.activity.dropped";
+    public static final String AUTH_EVENTS_QUEUE_SIZE = "auth.events.queue.size";
+    public static final String AUTH_EVENTS_WRITTEN = "auth.events.written";
+    public static final String AUTH_EVENTS_DROPPED = "auth.events.dropped";
+    public static final String AUDIT_PENDING = "auth.audit.pending";
+    public static final String AUDIT_APPENDED = "auth.audit.appended";
+    public static final String AUDIT_DROPPED = "auth.audit.dropped";
+    public static final String AUDIT_FSYNC = "auth.audit.fsync";
+    
+    // Token service client metrics
+    public static final String TOKEN_CLIENT_LATENCY = "token.client.latency";
+    public static final String TOKEN_CLIENT_HEDGE = "token.client.hedge";
+    public static final String TOKEN_CLIENT_BATCH_SIZE = "token.client.batch.size";
+    public static final String TOKEN_CLIENT_BATCH_WAIT = "token.client.batch.wait";
+    
+    // Email outbox metrics
+    public static final String EMAIL_OUTBOX_DELIVERY = "email.outbox.delivery";
+    public static final String EMAIL_OUTBOX_BATCH = "email.outbox.batch";
+    public static final String EMAIL_SMTP_CONNECTIONS = "email.smtp.connections";
+    public static final String EMAIL_THROTTLE_COLLAPSED = "email.throttle.collapsed";
+    
+    // Pipeline stage metrics
+    public static final String PIPELINE_STAGE = "auth.pipeline.stage";
+    
+    // Request coalescing metrics
+    public static final String SINGLE_FLIGHT_CALLS = "single.flight.calls";
+    public static final String SINGLE_FLIGHT_IN_FLIGHT = "single.flight.in.flight";
+    
+    // Admin metrics
+    public static final String ADMIN_IMPORT_ROWS = "admin.import.rows";
+    public static final String ADMIN_IMPORT_BATCH = "admin.import.batch";
+    
+    // Database pool metrics
+    public static final String DB_POOL_ACQUIRE = "r2dbc.pool.acquire";
+    public static final String DB_POOL_ALLOCATION = "r2dbc.pool.allocation";
+    public static final String DB_POOL_RESET = "r2dbc.pool.reset";
+    public static final String DB_POOL_DESTROY = "r2dbc.pool.destroy";
+    public static final String DB_POOL_IDLE_TIME = "r2dbc.pool.idle.time";
+    public static final String DB_POOL_LIFETIME = "r2dbc.pool.lifetime";
+    public static final String DB_POOL_RECYCLED = "r2dbc.pool.recycled";
+    public static final String DB_POOL_ACQUIRE_PATH = "r2dbc.pool.acquire.path";
+    public static final String DB_REPLICA_LAG = "r2dbc.replica.lag";
+    public static final String DB_REPLICA_HEALTHY = "r2dbc.replica.healthy";
+    public static final String DB_ROUTE = "r2dbc.route";
+    public static final String FAULTS_INJECTED = "faults.injected";
+    
+    // Request deadline metrics
+    public static final String DEADLINE_EXCEEDED = "deadline.exceeded";
     
     // Descriptions
     public static final String USER_PROFILE_DESC = "Time taken to get user profile";
@@ -37,4 +89,33 @@ public final class MetricsConstants {
     public static final String AUTH_CHECK_EMAIL_DESC = "Time taken to check email availability";
     public static final String AUTH_VERIFY_EMAIL_DESC = "Time taken to verify email";
     public static final String AUTH_RESEND_VERIFICATION_DESC = "Time taken to resend verification";
+    public static final String AUTH_REFRESH_REUSE_DESC = "Rotated-out refresh tokens presented again; each revokes its family";
+    public static final String LOGIN_ACTIVITY_BUFFER_SIZE_DESC = "Users with login activity waiting to be written";
+    public static final String LOGIN_ACTIVITY_FLUSH_DESC = "Time taken to write one batch of login activity";
+    public static final String AUTH_EVENTS_QUEUE_SIZE_DESC = "Auth events waiting for the writer thread";
+    public static final String AUTH_EVENTS_WRITTEN_DESC = "Auth events written to the auth.events log";
+    public static final String AUTH_EVENTS_DROPPED_DESC = "Auth events not written because they were sampled out or the queue was full";
+    public static final String AUDIT_PENDING_DESC = "Audit records waiting for the writer thread";
+    public static final String AUDIT_APPENDED_DESC = "Records appended to the memory-mapped audit log";
+    public static final String AUDIT_DROPPED_DESC = "Audit records lost because the ring was full or the write failed";
+    public static final String AUDIT_FSYNC_DESC = "Time taken to force a range of the audit segment to disk";
+    public static final String TOKEN_CLIENT_LATENCY_DESC = "Latency of a single token service call";
+    public static final String TOKEN_CLIENT_HEDGE_DESC = "Hedged token service calls sent and won";
+    public static final String TOKEN_CLIENT_BATCH_SIZE_DESC = "Token requests sent per batch call";
+    public static final String TOKEN_CLIENT_BATCH_WAIT_DESC = "Latency added by waiting for a token batch to fill";
+    public static final String EMAIL_OUTBOX_DELIVERY_DESC = "Queued emails sent, rescheduled or abandoned";
+    public static final String EMAIL_OUTBOX_BATCH_DESC = "Time taken to send and record one claimed outbox batch";
+    public static final String EMAIL_SMTP_CONNECTIONS_DESC = "SMTP connections opened by the outbox dispatcher";
+    public static final String EMAIL_THROTTLE_COLLAPSED_DESC = "Token email requests folded into a send already queued in the window";
+    public static final String PIPELINE_STAGE_DESC = "Latency of one stage of a request pipeline or web filter";
+    public static final String SINGLE_FLIGHT_CALLS_DESC = "Lookups executed or deduplicated onto an in-flight call";
+    public static final String SINGLE_FLIGHT_IN_FLIGHT_DESC = "Distinct lookups currently in flight";
+    public static final String ADMIN_IMPORT_ROWS_DESC = "Rows processed by bulk user import";
+    public static final String ADMIN_IMPORT_BATCH_DESC = "Time taken to write one bulk import batch";
+    public static final String DB_POOL_ACQUIRE_DESC = "Time spent waiting to acquire a pooled database connection";
+    public static final String DB_POOL_ALLOCATION_DESC = "Time taken to open a new database connection";
+    public static final String DB_REPLICA_LAG_DESC = "Replication lag of a read replica in milliseconds";
+    public static final String DB_ROUTE_DESC = "Connections routed to primary or replica";
+    public static final String FAULTS_INJECTED_DESC = "Dependency calls delayed, failed or hung by fault injection";
+    public static final String DEADLINE_EXCEEDED_DESC = "Dependency calls cancelled or refused because the request deadline or call timeout passed";
 }
\ No newline at end of file
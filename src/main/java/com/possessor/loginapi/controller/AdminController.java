@@ -0,0 +1,55 @@
+package com.possessor.loginapi.controller;
+
+import com.possessor.loginapi.constants.ApiEndpoints;
+import com.possessor.loginapi.dto.BulkImportBatchResult;
+import com.possessor.loginapi.dto.UserExportFilter;
+import com.possessor.loginapi.dto.UserExportRow;
+import com.possessor.loginapi.enums.BulkImportFormat;
+import com.possessor.loginapi.service.BulkImportService;
+import com.possessor.loginapi.service.UserExportService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping(ApiEndpoints.ADMIN_BASE)
+@RequiredArgsConstructor
+@Slf4j
+public class AdminController {
+    
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    
+    private final BulkImportService bulkImportService;
+    private final UserExportService userExportService;
+    
+    @GetMapping(value = ApiEndpoints.ADMIN_USERS, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserExportRow> listUsers(@Valid UserExportFilter filter) {
+        return userExportService.streamUsers(filter);
+    }
+    
+    @GetMapping(ApiEndpoints.ADMIN_USERS_EXPORT)
+    public ResponseEntity<Flux<String>> exportUsers(@Valid UserExportFilter filter) {
+        log.info("User export started with filter {}", filter);
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("users.csv").build().toString())
+                .body(userExportService.streamCsv(filter));
+    }
+    
+    // Streams one progress record per committed batch so large imports report as they go
+    @PostMapping(value = ApiEndpoints.ADMIN_USERS_IMPORT, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkImportBatchResult> importUsers(
+            @RequestParam(defaultValue = "CSV") BulkImportFormat format,
+            ServerHttpRequest request) {
+        log.info("Bulk user import started, format {}", format);
+        return bulkImportService.importUsers(request.getBody(), format);
+    }
+}
@@ -3,6 +3,8 @@ package com.possessor.loginapi.controller;
 import com.possessor.loginapi.constants.ApiEndpoints;
 import com.possessor.loginapi.constants.MetricsConstants;
 import com.possessor.loginapi.dto.*;
+import com.possessor.loginapi.enums.AuthEventType;
+import com.possessor.loginapi.service.AuthEventLog;
 import com.possessor.loginapi.service.AuthService;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.Counter;
@@ -17,9 +19,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
-import reactor.util.context.Context;
-
-import java.util.UUID;
 
 @RestController
 @RequestMapping(ApiEndpoints.AUTH_BASE + "/v1")
@@ -29,11 +28,13 @@ import java.util.UUID;
 public class AuthController {
     
     private final AuthService authService;
+    private final AuthEventLog authEventLog;
     private final Counter loginAttempts;
     private final Counter registrationAttempts;
     
-    public AuthController(AuthService authService, MeterRegistry meterRegistry) {
+    public AuthController(AuthService authService, AuthEventLog authEventLog, MeterRegistry meterRegistry) {
         this.authService = authService;
+        this.authEventLog = authEventLog;
         this.loginAttempts = Counter.builder("auth.login.attempts")
             .description("Total login attempts")
             .register(meterRegistry);
@@ -45,7 +46,6 @@ public class AuthController {
     @PostMapping(ApiEndpoints.AUTH_REGISTER)
     @Timed(value = MetricsConstants.AUTH_REGISTER, description = MetricsConstants.AUTH_REGISTER_DESC)
     public Mono<ResponseEntity<MessageResponse>> register(@Valid @RequestBody RegisterRequest request) {
-        String correlationId = UUID.randomUUID().toString();
         registrationAttempts.increment();
         
         // Sanitize inputs
@@ -53,12 +53,10 @@ public class AuthController {
         request.setEmail(request.getEmail().trim().toLowerCase());
         
         return authService.register(request)
-                .contextWrite(Context.of("correlationId", correlationId))
                 .map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response))
-                .doOnSuccess(response -> log.info("Registration successful for user: {} [{}]", 
-                    request.getUsername(), correlationId))
-                .doOnError(error -> log.error("Registration failed for user: {} [{}] - {}", 
-                    request.getUsername(), correlationId, error.getMessage()));
+                .doOnSuccess(response -> authEventLog.record(AuthEventType.REGISTER_SUCCESS, request.getUsername()))
+                .doOnError(error -> authEventLog.record(AuthEventType.REGISTER_FAILURE, request.getUsername(),
+                    null, AuthEventLog.describe(error)));
     }
     
     @PostMapping(ApiEndpoints.AUTH_LOGIN)
@@ -66,28 +64,17 @@ public class AuthController {
     public Mono<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request,
                                                    @RequestHeader(value = "User-Agent", required = false) String userAgent,
                                                    @RequestHeader(value = "X-Forwarded-For", required = false) String clientIp) {
-        String correlationId = UUID.randomUUID().toString();
         loginAttempts.increment();
         
         // Sanitize input to prevent injection attacks
         request.setUsername(request.getUsername().trim().toLowerCase());
         
-        log.info("Login attempt for user: {} from IP: {} [{}]", 
-            request.getUsername(), clientIp != null ? clientIp : "unknown", correlationId);
-        
         return authService.login(request)
-                .contextWrite(Context.of("correlationId", correlationId))
-                .map(response -> {
-                    log.info("Successful login for user: {} [{}]", request.getUsername(), correlationId);
-                    return ResponseEntity.ok()
-                        .header("X-Correlation-ID", correlationId)
-                        .body(response);
-                })
-                .doOnError(error -> {
-                    log.warn("Failed login attempt for user: {} from IP: {} [{}] - {}", 
-                        request.getUsername(), clientIp != null ? clientIp : "unknown", 
-                        correlationId, error.getMessage());
-                });
+                .doOnSuccess(response -> authEventLog.record(AuthEventType.LOGIN_SUCCESS, request.getUsername(),
+                    clientIp, null))
+                .doOnError(error -> authEventLog.record(AuthEventType.LOGIN_FAILURE, request.getUsername(),
+                    clientIp, AuthEventLog.describe(error)))
+                .map(ResponseEntity::ok);
     }
     
     @GetMapping(ApiEndpoints.AUTH_HEALTH)
@@ -99,6 +86,7 @@ public class AuthController {
     @Timed(value = MetricsConstants.AUTH_FORGOT_PASSWORD, description = MetricsConstants.AUTH_FORGOT_PASSWORD_DESC)
     public Mono<ResponseEntity<MessageResponse>> forgotPassword(@Valid @RequestBody PasswordResetRequest request) {
         return authService.requestPasswordReset(request.getEmail())
+                .doOnSuccess(response -> authEventLog.record(AuthEventType.PASSWORD_RESET_REQUESTED, request.getEmail()))
                 .map(ResponseEntity::ok);
     }
     
@@ -106,6 +94,8 @@ public class AuthController {
     @Timed(value = MetricsConstants.AUTH_RESET_PASSWORD, description = MetricsConstants.AUTH_RESET_PASSWORD_DESC)
     public Mono<ResponseEntity<MessageResponse>> resetPassword(@Valid @RequestBody PasswordResetConfirmRequest request) {
         return authService.resetPassword(request.getToken(), request.getNewPassword())
+                .doOnError(error -> authEventLog.record(AuthEventType.PASSWORD_RESET_FAILURE, null,
+                    null, AuthEventLog.describe(error)))
                 .map(ResponseEntity::ok);
     }
     
@@ -113,13 +103,18 @@ public class AuthController {
     @Timed(value = MetricsConstants.AUTH_REFRESH, description = MetricsConstants.AUTH_REFRESH_DESC)
     public Mono<ResponseEntity<AuthResponse>> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
         return authService.refreshToken(request.getRefreshToken())
+                .doOnSuccess(response -> authEventLog.record(AuthEventType.REFRESH_SUCCESS, response.getUsername()))
+                .doOnError(error -> authEventLog.record(AuthEventType.REFRESH_FAILURE, null,
+                    null, AuthEventLog.describe(error)))
                 .map(ResponseEntity::ok);
     }
     
     @PostMapping(ApiEndpoints.AUTH_LOGOUT)
     @Timed(value = MetricsConstants.AUTH_LOGOUT, description = MetricsConstants.AUTH_LOGOUT_DESC)
-    public Mono<ResponseEntity<MessageResponse>> logout(@RequestHeader("Authorization") String token) {
-        return authService.logout(token.replace("Bearer ", ""))
+    public Mono<ResponseEntity<MessageResponse>> logout(
+            @RequestHeader("Authorization") String token,
+            @RequestBody(required = false) RefreshTokenRequest request) {
+        return authService.logout(token.replace("Bearer ", ""), request != null ? request.getRefreshToken() : null)
                 .map(ResponseEntity::ok);
     }
     
@@ -0,0 +1,51 @@
+package com.possessor.loginapi.controller;
+
+import com.possessor.loginapi.client.LocalTokenIssuer;
+import com.possessor.loginapi.constants.ApiEndpoints;
+import com.possessor.loginapi.dto.TokenRequest;
+import com.possessor.loginapi.dto.TokenResponse;
+import com.possessor.loginapi.security.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Local stand-in for the remote token service, for tests and load runs. Point remote mode at it with
+ * {@code token.service.url=http://localhost:<port>/stub/token-service}. Never enable in production:
+ * it mints tokens for any caller.
+ */
+@RestController
+@RequestMapping(ApiEndpoints.TOKEN_SERVICE_STUB_BASE)
+@ConditionalOnProperty(name = "token.service.stub.enabled", havingValue = "true")
+@Slf4j
+public class TokenServiceStubController {
+    
+    private final LocalTokenIssuer issuer;
+    
+    public TokenServiceStubController(JwtUtil jwtUtil) {
+        this.issuer = new LocalTokenIssuer(jwtUtil);
+        log.warn("Token service stand-in enabled at {}", ApiEndpoints.TOKEN_SERVICE_STUB_BASE);
+    }
+    
+    @PostMapping(ApiEndpoints.TOKEN_SERVICE_TOKEN)
+    public Mono<TokenResponse> token(@RequestBody TokenRequest request) {
+        return issuer.generateToken(request.getUsername(), request.getEmail(), request.getRoles());
+    }
+    
+    // Responses are returned in request order; the client matches them by position
+    @PostMapping(ApiEndpoints.TOKEN_SERVICE_TOKEN_BATCH)
+    public Mono<List<TokenResponse>> tokenBatch(@RequestBody List<TokenRequest> requests) {
+        return Flux.fromIterable(requests)
+                .concatMap(request -> issuer.generateToken(request.getUsername(), request.getEmail(), request.getRoles()))
+                .collectList();
+    }
+    
+    @PostMapping(ApiEndpoints.TOKEN_SERVICE_REFRESH)
+    public Mono<TokenResponse> refresh(@RequestBody String refreshToken) {
+        return issuer.refreshToken(refreshToken);
+    }
+}
@@ -12,6 +12,7 @@ import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -30,12 +31,12 @@ public class UserController {
     @Timed(value = MetricsConstants.USER_PROFILE, description = MetricsConstants.USER_PROFILE_DESC)
     public Mono<ResponseEntity<User>> getProfile(Authentication authentication) {
         String username = authentication.getName();
+        // The looked-up User is shared by coalesced and cached callers, so it is copied, not mutated
         return authService.findByUsername(username)
                 .map(user -> {
-                    user.setPassword(null);
-                    user.setResetToken(null);
-                    user.setVerificationToken(null);
-                    return ResponseEntity.ok(user);
+                    User profile = new User();
+                    BeanUtils.copyProperties(user, profile, "password");
+                    return ResponseEntity.ok(profile);
                 })
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
@@ -0,0 +1,22 @@
+package com.possessor.loginapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.possessor.loginapi.enums.AuthEventType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AuthEvent {
+    private Instant timestamp;
+    private AuthEventType type;
+    private AuthEventType.Category category;
+    // Username, or the email address for requests that only carry one
+    private String subject;
+    private String clientIp;
+    private String correlationId;
+    private String detail;
+}
@@ -0,0 +1,18 @@
+package com.possessor.loginapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BulkImportBatchResult {
+    private long batch;
+    private int received;
+    private int imported;
+    private int rejected;
+    private long totalImported;
+    private long totalRejected;
+    private List<RejectedRow> rejectedRows;
+}
@@ -0,0 +1,12 @@
+package com.possessor.loginapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RejectedRow {
+    private long line;
+    private String username;
+    private String reason;
+}
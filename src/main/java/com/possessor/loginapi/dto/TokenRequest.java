@@ -8,4 +8,6 @@ import lombok.Data;
 public class TokenRequest {
     private String username;
     private String email;
+    // RoleBits mask, embedded by the token service as the "rol" claim
+    private int roles;
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.possessor.loginapi.dto;
+
+import com.possessor.loginapi.enums.UserRole;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Data
+public class UserExportFilter {
+    private UserRole role;
+    
+    private Boolean emailVerified;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+    
+    // Keyset cursor: only users with a larger id are returned
+    @Min(value = 0, message = "afterId must not be negative")
+    private Long afterId;
+    
+    @Min(value = 1, message = "limit must be positive")
+    private Long limit;
+}
@@ -0,0 +1,18 @@
+package com.possessor.loginapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class UserExportRow {
+    private Long id;
+    private String username;
+    private String email;
+    private boolean emailVerified;
+    private String roles;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
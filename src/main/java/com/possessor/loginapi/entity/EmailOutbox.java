@@ -0,0 +1,31 @@
+package com.possessor.loginapi.entity;
+
+import com.possessor.loginapi.enums.EmailOutboxStatus;
+import com.possessor.loginapi.enums.TokenType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("email_outbox")
+public class EmailOutbox {
+    @Id
+    private Long id;
+    private Long userId;
+    private String recipient;
+    private TokenType emailType;
+    private String payload;
+    private EmailOutboxStatus status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime leaseUntil;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
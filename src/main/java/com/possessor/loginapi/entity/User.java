@@ -1,14 +1,14 @@
 package com.possessor.loginapi.entity;
 
-import com.possessor.loginapi.enums.UserRole;
+import com.possessor.loginapi.security.RoleBits;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.relational.core.mapping.Table;
 
 import java.time.LocalDateTime;
-import java.util.Set;
 
 @Data
 @NoArgsConstructor
@@ -21,10 +21,16 @@ public class User {
     private String email;
     private String password;
     private boolean emailVerified = false;
-    private String verificationToken;
-    private String resetToken;
-    private LocalDateTime resetTokenExpiry;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
-    private Set<UserRole> roles;
+    private Integer shardBucket;
+    // Written only by LoginActivityBuffer so entity saves never overwrite buffered activity
+    @ReadOnlyProperty
+    private LocalDateTime lastLoginAt;
+    @ReadOnlyProperty
+    private int failedLoginCount;
+    @ReadOnlyProperty
+    private LocalDateTime lastFailedLoginAt;
+    // Bitmask over UserRole, see RoleBits
+    private int roles = RoleBits.DEFAULT;
 }
\ No newline at end of file
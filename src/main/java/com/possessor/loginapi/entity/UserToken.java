@@ -0,0 +1,25 @@
+package com.possessor.loginapi.entity;
+
+import com.possessor.loginapi.enums.TokenType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("user_tokens")
+public class UserToken {
+    @Id
+    private Long id;
+    private Long userId;
+    private String tokenHash;
+    private TokenType tokenType;
+    private LocalDateTime expiresAt;
+    private LocalDateTime consumedAt;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,35 @@
+package com.possessor.loginapi.enums;
+
+// Ordinals are persisted in the audit log; add new values at the end only
+public enum AuthEventType {
+    LOGIN_SUCCESS(Category.SUCCESS),
+    LOGIN_FAILURE(Category.FAILURE),
+    REGISTER_SUCCESS(Category.SUCCESS),
+    REGISTER_FAILURE(Category.FAILURE),
+    REFRESH_SUCCESS(Category.SUCCESS),
+    REFRESH_FAILURE(Category.FAILURE),
+    LOGOUT(Category.SUCCESS),
+    PASSWORD_RESET_REQUESTED(Category.SECURITY),
+    PASSWORD_RESET_COMPLETED(Category.SECURITY),
+    PASSWORD_RESET_FAILURE(Category.FAILURE),
+    REFRESH_TOKEN_REUSE(Category.SECURITY),
+    RATE_LIMITED(Category.SECURITY),
+    BLACKLISTED_TOKEN(Category.SECURITY);
+    
+    // Only SUCCESS events are sampled; the others are always logged
+    public enum Category {
+        SUCCESS,
+        FAILURE,
+        SECURITY
+    }
+    
+    private final Category category;
+    
+    AuthEventType(Category category) {
+        this.category = category;
+    }
+    
+    public Category getCategory() {
+        return category;
+    }
+}
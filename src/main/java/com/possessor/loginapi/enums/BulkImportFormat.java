@@ -0,0 +1,6 @@
+package com.possessor.loginapi.enums;
+
+public enum BulkImportFormat {
+    CSV,
+    NDJSON
+}
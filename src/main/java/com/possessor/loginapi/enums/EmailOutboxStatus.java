@@ -0,0 +1,7 @@
+package com.possessor.loginapi.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
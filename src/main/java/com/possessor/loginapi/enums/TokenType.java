@@ -0,0 +1,6 @@
+package com.possessor.loginapi.enums;
+
+public enum TokenType {
+    PASSWORD_RESET,
+    EMAIL_VERIFICATION
+}
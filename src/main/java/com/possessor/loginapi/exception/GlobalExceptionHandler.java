@@ -1,5 +1,6 @@
 package com.possessor.loginapi.exception;
 
+import com.possessor.loginapi.constants.ErrorMessages;
 import com.possessor.loginapi.dto.ErrorResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -57,6 +58,31 @@ public class GlobalExceptionHandler {
         return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse));
     }
     
+    @ExceptionHandler(ShardUnavailableException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleShardUnavailableException(ShardUnavailableException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Service temporarily unavailable", HttpStatus.SERVICE_UNAVAILABLE.value());
+        log.warn("Shard unavailable: {}", ex.getMessage());
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(errorResponse));
+    }
+    
+    @ExceptionHandler(TokenServiceUnavailableException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleTokenServiceUnavailableException(TokenServiceUnavailableException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Service temporarily unavailable", HttpStatus.SERVICE_UNAVAILABLE.value());
+        log.warn("Token service unavailable: {}", ex.getMessage());
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(errorResponse));
+    }
+    
+    @ExceptionHandler(DeadlineExceededException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleDeadlineExceededException(DeadlineExceededException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ErrorMessages.DEADLINE_EXCEEDED_ERROR, HttpStatus.GATEWAY_TIMEOUT.value());
+        log.warn("Deadline exceeded: {}", ex.getMessage());
+        return Mono.just(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(errorResponse));
+    }
+    
     @ExceptionHandler(Exception.class)
     public Mono<ResponseEntity<ErrorResponse>> handleGenericException(Exception ex) {
         ErrorResponse errorResponse = new ErrorResponse("Internal server error", HttpStatus.INTERNAL_SERVER_ERROR.value());
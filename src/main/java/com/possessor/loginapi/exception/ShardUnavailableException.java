@@ -0,0 +1,7 @@
+package com.possessor.loginapi.exception;
+
+public class ShardUnavailableException extends RuntimeException {
+    public ShardUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.possessor.loginapi.exception;
+
+public class TokenServiceUnavailableException extends RuntimeException {
+    public TokenServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,52 @@
+package com.possessor.loginapi.fault;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * What to do to calls on one target. Each call independently draws a hang, an error or added
+ * latency with the given rates; an error is raised after the latency. The fault lifts itself at
+ * {@code expiresAt} so a forgotten experiment cannot outlive its run.
+ */
+public record Fault(Distribution distribution, Duration latency, Duration jitter, double latencyRate,
+                    double errorRate, double hangRate, Instant expiresAt) {
+    
+    private static final int EXPONENTIAL_CAP = 20;
+    
+    public enum Distribution {
+        // Always latency
+        FIXED,
+        // latency plus up to jitter
+        UNIFORM,
+        // Mean latency, capped at 20 times the mean
+        EXPONENTIAL
+    }
+    
+    boolean isExpired() {
+        return Instant.now().isAfter(expiresAt);
+    }
+    
+    boolean drawHang() {
+        return hangRate > 0 && ThreadLocalRandom.current().nextDouble() < hangRate;
+    }
+    
+    boolean drawError() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+    
+    // Zero when this call gets no added latency
+    Duration drawLatency() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (latency.isZero() || random.nextDouble() >= latencyRate) {
+            return Duration.ZERO;
+        }
+        return switch (distribution) {
+            case FIXED -> latency;
+            case UNIFORM -> latency.plusNanos(jitter.isZero() ? 0 : random.nextLong(jitter.toNanos()));
+            case EXPONENTIAL -> Duration.ofNanos((long) Math.min(
+                    -Math.log(1 - random.nextDouble()) * latency.toNanos(),
+                    (double) latency.toNanos() * EXPONENTIAL_CAP));
+        };
+    }
+}
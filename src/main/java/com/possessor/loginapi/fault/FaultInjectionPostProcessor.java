@@ -0,0 +1,31 @@
+package com.possessor.loginapi.fault;
+
+import com.possessor.loginapi.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Wraps the user repository so every query it returns can be delayed, failed or hung. Redis is
+ * wrapped where its template is built; the token service and SMTP paths call the injector directly.
+ */
+@Component
+@ConditionalOnProperty(name = "app.faults.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class FaultInjectionPostProcessor implements BeanPostProcessor {
+    
+    // Looked up lazily: post-processors are created before ordinary beans
+    private final ObjectProvider<FaultInjector> faultInjector;
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof UserRepository) {
+            return FaultProxies.wrap(bean, ClassUtils.getAllInterfaces(bean), faultInjector.getObject(),
+                    FaultTarget.DATABASE, type -> false);
+        }
+        return bean;
+    }
+}
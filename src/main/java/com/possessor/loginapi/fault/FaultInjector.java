@@ -0,0 +1,160 @@
+package com.possessor.loginapi.fault;
+
+import com.possessor.loginapi.constants.MetricsConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency, errors and hangs for dependency calls, set per target at runtime through
+ * {@code /actuator/faults}. Only exists with {@code app.faults.enabled=true}; without it no call
+ * site is wrapped at all. The fault is drawn when a call is subscribed, so retries draw again.
+ */
+@Component
+@ConditionalOnProperty(name = "app.faults.enabled", havingValue = "true")
+@Slf4j
+public class FaultInjector {
+    
+    private static final long BLOCKING_HANG_POLL_MILLIS = 100;
+    private static final String REDIS_CONNECTION_PACKAGE = "org.springframework.data.redis.connection";
+    
+    private final Map<FaultTarget, Fault> faults = new ConcurrentHashMap<>();
+    private final Map<FaultTarget, Map<String, Counter>> injected = new EnumMap<>(FaultTarget.class);
+    private final Duration maxDuration;
+    
+    public FaultInjector(MeterRegistry meterRegistry,
+                         @Value("${app.faults.max-duration:10m}") Duration maxDuration) {
+        this.maxDuration = maxDuration;
+        for (FaultTarget target : FaultTarget.values()) {
+            Map<String, Counter> counters = new LinkedHashMap<>();
+            for (String kind : new String[]{"latency", "error", "hang"}) {
+                counters.put(kind, Counter.builder(MetricsConstants.FAULTS_INJECTED)
+                        .description(MetricsConstants.FAULTS_INJECTED_DESC)
+                        .tag("target", target.name().toLowerCase())
+                        .tag("kind", kind)
+                        .register(meterRegistry));
+            }
+            injected.put(target, counters);
+        }
+        log.warn("Fault injection is enabled; faults can be set through /actuator/faults");
+    }
+    
+    public Fault set(FaultTarget target, Fault.Distribution distribution, Duration latency, Duration jitter,
+                     double latencyRate, double errorRate, double hangRate, Duration duration) {
+        Duration bounded = duration == null || duration.compareTo(maxDuration) > 0 ? maxDuration : duration;
+        Fault fault = new Fault(distribution, latency, jitter, latencyRate, errorRate, hangRate,
+                Instant.now().plus(bounded));
+        faults.put(target, fault);
+        log.warn("Injecting faults into {} until {}: {}", target, fault.expiresAt(), fault);
+        return fault;
+    }
+    
+    public void clear(FaultTarget target) {
+        if (faults.remove(target) != null) {
+            log.warn("Cleared injected faults for {}", target);
+        }
+    }
+    
+    public void clearAll() {
+        faults.clear();
+        log.warn("Cleared all injected faults");
+    }
+    
+    public Map<FaultTarget, Fault> active() {
+        faults.values().removeIf(Fault::isExpired);
+        return Map.copyOf(faults);
+    }
+    
+    // Only the template's view of the factory is wrapped, so the Lettuce bean keeps its lifecycle
+    public ReactiveRedisConnectionFactory wrap(ReactiveRedisConnectionFactory factory) {
+        return FaultProxies.wrap(factory, new Class<?>[]{ReactiveRedisConnectionFactory.class}, this,
+                FaultTarget.REDIS, type -> type.getPackageName().startsWith(REDIS_CONNECTION_PACKAGE));
+    }
+    
+    public <T> Mono<T> apply(FaultTarget target, Mono<T> source) {
+        return Mono.defer(() -> {
+            Fault fault = current(target);
+            if (fault == null) {
+                return source;
+            }
+            if (fault.drawHang()) {
+                count(target, "hang");
+                return Mono.never();
+            }
+            Duration latency = fault.drawLatency();
+            Mono<T> call = fault.drawError() ? Mono.defer(() -> {
+                count(target, "error");
+                return Mono.error(target.error());
+            }) : source;
+            if (latency.isZero()) {
+                return call;
+            }
+            count(target, "latency");
+            return Mono.delay(latency).then(call);
+        });
+    }
+    
+    public <T> Flux<T> apply(FaultTarget target, Flux<T> source) {
+        return apply(target, Mono.just(source)).flatMapMany(flux -> flux);
+    }
+    
+    // For blocking call sites; a hang lasts until the fault is cleared or expires, then fails
+    public void applyBlocking(FaultTarget target) throws MessagingException {
+        Fault fault = current(target);
+        if (fault == null) {
+            return;
+        }
+        try {
+            if (fault.drawHang()) {
+                count(target, "hang");
+                while (current(target) != null) {
+                    TimeUnit.MILLISECONDS.sleep(BLOCKING_HANG_POLL_MILLIS);
+                }
+                throw new MessagingException("Injected hang on " + target);
+            }
+            Duration latency = fault.drawLatency();
+            if (!latency.isZero()) {
+                count(target, "latency");
+                TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted during injected fault on " + target, e);
+        }
+        if (fault.drawError()) {
+            count(target, "error");
+            Throwable error = target.error();
+            throw error instanceof MessagingException messagingException
+                    ? messagingException : new MessagingException(error.getMessage());
+        }
+    }
+    
+    private Fault current(FaultTarget target) {
+        Fault fault = faults.get(target);
+        if (fault != null && fault.isExpired()) {
+            faults.remove(target, fault);
+            log.warn("Injected faults for {} expired", target);
+            return null;
+        }
+        return fault;
+    }
+    
+    private void count(FaultTarget target, String kind) {
+        injected.get(target).get(kind).increment();
+    }
+}
@@ -0,0 +1,63 @@
+package com.possessor.loginapi.fault;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * JDK proxies that pass every Mono or Flux a call returns through the injector. Returned
+ * interfaces accepted by {@code descendInto} are wrapped as well, which reaches command objects
+ * handed out by a connection.
+ */
+final class FaultProxies {
+    
+    // Releasing resources must keep working while a fault is active
+    private static final Set<String> EXEMPT = Set.of("close", "closeLater");
+    
+    private FaultProxies() {
+    }
+    
+    @SuppressWarnings("unchecked")
+    static <T> T wrap(T target, Class<?>[] interfaces, FaultInjector injector, FaultTarget faultTarget,
+                      Predicate<Class<?>> descendInto) {
+        InvocationHandler handler = new Handler(target, injector, faultTarget, descendInto);
+        return (T) Proxy.newProxyInstance(FaultProxies.class.getClassLoader(), interfaces, handler);
+    }
+    
+    private record Handler(Object target, FaultInjector injector, FaultTarget faultTarget,
+                           Predicate<Class<?>> descendInto) implements InvocationHandler {
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result == null || EXEMPT.contains(method.getName())) {
+                return result;
+            }
+            if (result instanceof Mono<?> mono) {
+                return injector.apply(faultTarget, mono);
+            }
+            if (result instanceof Flux<?> flux) {
+                return injector.apply(faultTarget, flux);
+            }
+            Class<?> type = method.getReturnType();
+            if (type.isInterface() && descendInto.test(type)) {
+                return wrap(result, new Class<?>[]{type}, injector, faultTarget, descendInto);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.possessor.loginapi.fault;
+
+import jakarta.mail.MessagingException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Each injected error has the type the real dependency fails with, so the normal handling applies
+public enum FaultTarget {
+    REDIS(() -> new RedisConnectionFailureException("Injected Redis fault")),
+    DATABASE(() -> new DataAccessResourceFailureException("Injected database fault")),
+    TOKEN_SERVICE(() -> new TimeoutException("Injected token service fault")),
+    SMTP(() -> new MessagingException("Injected SMTP fault"));
+    
+    private final Supplier<Throwable> error;
+    
+    FaultTarget(Supplier<Throwable> error) {
+        this.error = error;
+    }
+    
+    public Throwable error() {
+        return error.get();
+    }
+}
@@ -0,0 +1,82 @@
+package com.possessor.loginapi.filter;
+
+import com.possessor.loginapi.constants.AuthConstants;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Puts the request's correlation ID, and the trace ID from a W3C {@code traceparent} header when
+ * present, into the Reactor context; automatic context propagation copies both into the MDC for
+ * every log line of the request. A well-formed incoming {@code X-Correlation-ID} is reused,
+ * anything else is replaced, and the ID is echoed on every response.
+ */
+@Component
+public class CorrelationIdFilter implements WebFilter, Ordered {
+    
+    private static final int MAX_ID_LENGTH = 64;
+    private static final int TRACE_ID_LENGTH = 32;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        String correlationId = headers.getFirst(AuthConstants.CORRELATION_ID_HEADER);
+        if (!isValidId(correlationId)) {
+            correlationId = newId();
+        }
+        exchange.getResponse().getHeaders().set(AuthConstants.CORRELATION_ID_HEADER, correlationId);
+        
+        String traceId = traceIdOf(headers.getFirst(AuthConstants.TRACEPARENT_HEADER));
+        Context context = traceId != null
+                ? Context.of(AuthConstants.CORRELATION_ID_KEY, correlationId, AuthConstants.TRACE_ID_KEY, traceId)
+                : Context.of(AuthConstants.CORRELATION_ID_KEY, correlationId);
+        return chain.filter(exchange).contextWrite(context);
+    }
+    
+    // Correlation IDs only need to be unique, so skip the SecureRandom behind UUID.randomUUID()
+    private static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+    
+    // Restricted charset so a client cannot forge log lines through the header
+    static boolean isValidId(String id) {
+        if (id == null || id.isEmpty() || id.length() > MAX_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // traceparent: version-traceid-parentid-flags, e.g. 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01
+    static String traceIdOf(String traceparent) {
+        if (traceparent == null || traceparent.length() < 3 + TRACE_ID_LENGTH || traceparent.charAt(2) != '-') {
+            return null;
+        }
+        String traceId = traceparent.substring(3, 3 + TRACE_ID_LENGTH);
+        for (int i = 0; i < traceId.length(); i++) {
+            if (Character.digit(traceId.charAt(i), 16) < 0) {
+                return null;
+            }
+        }
+        return traceId;
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
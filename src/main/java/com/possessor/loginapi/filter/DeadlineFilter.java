@@ -0,0 +1,80 @@
+package com.possessor.loginapi.filter;
+
+import com.possessor.loginapi.constants.ApiEndpoints;
+import com.possessor.loginapi.constants.AuthConstants;
+import com.possessor.loginapi.support.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Gives each auth and user request a deadline in the Reactor context, from the endpoint's budget.
+ * A caller can shorten it with {@code X-Request-Timeout} (milliseconds) but never extend it. Admin
+ * streams, actuator and the token service stand-in have no deadline.
+ */
+@Component
+public class DeadlineFilter implements WebFilter, Ordered {
+
+    @Value("${app.deadline.default:2s}")
+    private Duration defaultBudget;
+
+    @Value("${app.deadline.login:3s}")
+    private Duration loginBudget;
+
+    @Value("${app.deadline.register:3s}")
+    private Duration registerBudget;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Duration budget = budgetOf(exchange.getRequest().getPath().value());
+        if (budget == null) {
+            return chain.filter(exchange);
+        }
+        Duration requested = requestedBudget(exchange.getRequest().getHeaders().getFirst(AuthConstants.REQUEST_TIMEOUT_HEADER));
+        if (requested != null && requested.compareTo(budget) < 0) {
+            budget = requested;
+        }
+        Deadline deadline = Deadline.after(budget);
+        return chain.filter(exchange).contextWrite(context -> context.put(AuthConstants.DEADLINE_KEY, deadline));
+    }
+
+    private Duration budgetOf(String path) {
+        if (path.startsWith(ApiEndpoints.AUTH_BASE)) {
+            if (path.endsWith(ApiEndpoints.AUTH_LOGIN)) {
+                return loginBudget;
+            }
+            if (path.endsWith(ApiEndpoints.AUTH_REGISTER)) {
+                return registerBudget;
+            }
+            return defaultBudget;
+        }
+        return path.startsWith(ApiEndpoints.USER_BASE) ? defaultBudget : null;
+    }
+
+    // Anything but a positive number of milliseconds is ignored
+    private static Duration requestedBudget(String header) {
+        if (header == null || header.isEmpty() || header.length() > 9) {
+            return null;
+        }
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        long millis = Long.parseLong(header);
+        return millis > 0 ? Duration.ofMillis(millis) : null;
+    }
+
+    // After the correlation ID, before any filter that calls Redis
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
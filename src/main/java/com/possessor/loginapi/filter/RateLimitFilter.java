@@ -1,11 +1,15 @@
 package com.possessor.loginapi.filter;
 
+import com.possessor.loginapi.enums.AuthEventType;
+import com.possessor.loginapi.service.AuthEventLog;
 import com.possessor.loginapi.service.RateLimitService;
+import com.possessor.loginapi.support.StageTimer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
@@ -20,6 +24,8 @@ import java.time.Duration;
 public class RateLimitFilter implements WebFilter, Ordered {
     
     private final RateLimitService rateLimitService;
+    private final StageTimer stageTimer;
+    private final AuthEventLog authEventLog;
     
     @Value("${app.rate-limit.login-requests:5}")
     private int loginMaxRequests;
@@ -29,24 +35,28 @@ public class RateLimitFilter implements WebFilter, Ordered {
     
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return stageTimer.filter("rate-limit", exchange, chain, this::limit);
+    }
+    
+    private Mono<Void> limit(ServerWebExchange exchange, WebFilterChain chain) {
         String path = exchange.getRequest().getPath().value();
-        String clientIp = getClientIp(exchange);
+        String clientIp = getClientIp(exchange.getRequest());
         
         if (path.contains("/auth/v1/login")) {
-            return checkRateLimit(exchange, chain, "login:" + clientIp, loginMaxRequests);
+            return checkRateLimit(exchange, chain, "login:" + clientIp, clientIp, loginMaxRequests);
         } else if (path.contains("/auth/v1/register")) {
-            return checkRateLimit(exchange, chain, "register:" + clientIp, registerMaxRequests);
+            return checkRateLimit(exchange, chain, "register:" + clientIp, clientIp, registerMaxRequests);
         }
         
         return chain.filter(exchange);
     }
     
     private Mono<Void> checkRateLimit(ServerWebExchange exchange, WebFilterChain chain, 
-                                     String key, int maxRequests) {
+                                     String key, String clientIp, int maxRequests) {
         return rateLimitService.isAllowed(key, maxRequests, Duration.ofMinutes(1))
             .flatMap(allowed -> {
                 if (!allowed) {
-                    log.warn("Rate limit exceeded for key: {}", key);
+                    authEventLog.record(AuthEventType.RATE_LIMITED, null, clientIp, key);
                     exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
                     exchange.getResponse().getHeaders().add("X-RateLimit-Limit", String.valueOf(maxRequests));
                     exchange.getResponse().getHeaders().add("X-RateLimit-Remaining", "0");
@@ -63,13 +73,14 @@ public class RateLimitFilter implements WebFilter, Ordered {
             });
     }
     
-    private String getClientIp(ServerWebExchange exchange) {
-        String xForwardedFor = exchange.getRequest().getHeaders().getFirst("X-Forwarded-For");
+    // Package-private for the header parsing benchmark
+    static String getClientIp(ServerHttpRequest request) {
+        String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
             return xForwardedFor.split(",")[0].trim();
         }
-        return exchange.getRequest().getRemoteAddress() != null ? 
-            exchange.getRequest().getRemoteAddress().getAddress().getHostAddress() : "unknown";
+        return request.getRemoteAddress() != null ? 
+            request.getRemoteAddress().getAddress().getHostAddress() : "unknown";
     }
     
     @Override
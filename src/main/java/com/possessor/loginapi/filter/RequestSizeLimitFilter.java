@@ -1,5 +1,8 @@
 package com.possessor.loginapi.filter;
 
+import com.possessor.loginapi.constants.ApiEndpoints;
+import com.possessor.loginapi.support.StageTimer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpStatus;
@@ -10,13 +13,25 @@ import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class RequestSizeLimitFilter implements WebFilter, Ordered {
     
     private static final long MAX_REQUEST_SIZE = 1024 * 1024; // 1MB
     
+    private final StageTimer stageTimer;
+    
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return stageTimer.filter("request-size", exchange, chain, this::checkSize);
+    }
+    
+    private Mono<Void> checkSize(ServerWebExchange exchange, WebFilterChain chain) {
+        // Bulk imports stream arbitrarily large bodies and are consumed with backpressure
+        if (exchange.getRequest().getPath().value().equals(ApiEndpoints.FULL_ADMIN_USERS_IMPORT)) {
+            return chain.filter(exchange);
+        }
+        
         String contentLength = exchange.getRequest().getHeaders().getFirst("Content-Length");
         
         if (contentLength != null) {
@@ -1,6 +1,9 @@
 package com.possessor.loginapi.filter;
 
+import com.possessor.loginapi.enums.AuthEventType;
+import com.possessor.loginapi.service.AuthEventLog;
 import com.possessor.loginapi.service.SessionService;
+import com.possessor.loginapi.support.StageTimer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.Ordered;
@@ -17,9 +20,15 @@ import reactor.core.publisher.Mono;
 public class TokenBlacklistFilter implements WebFilter, Ordered {
     
     private final SessionService sessionService;
+    private final StageTimer stageTimer;
+    private final AuthEventLog authEventLog;
     
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return stageTimer.filter("token-blacklist", exchange, chain, this::checkBlacklist);
+    }
+    
+    private Mono<Void> checkBlacklist(ServerWebExchange exchange, WebFilterChain chain) {
         String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
         
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
@@ -28,7 +37,8 @@ public class TokenBlacklistFilter implements WebFilter, Ordered {
             return sessionService.isTokenBlacklisted(token)
                 .flatMap(isBlacklisted -> {
                     if (isBlacklisted) {
-                        log.warn("Blacklisted token attempted access");
+                        authEventLog.record(AuthEventType.BLACKLISTED_TOKEN, null, null,
+                            exchange.getRequest().getPath().value());
                         exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
                         return exchange.getResponse().setComplete();
                     }
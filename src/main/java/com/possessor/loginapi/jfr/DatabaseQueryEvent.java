@@ -0,0 +1,28 @@
+package com.possessor.loginapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.possessor.loginapi.DatabaseQuery")
+@Label("Database Query")
+@Description("Time from executing a statement until the driver has produced all its results")
+@Category({"Login API", "Database"})
+public class DatabaseQueryEvent extends Event {
+
+    @Label("SQL")
+    private final String sql;
+
+    @Label("Failed")
+    private boolean failed;
+
+    public DatabaseQueryEvent(String sql) {
+        this.sql = sql;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+}
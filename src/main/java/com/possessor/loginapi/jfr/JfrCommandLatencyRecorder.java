@@ -0,0 +1,22 @@
+package com.possessor.loginapi.jfr;
+
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import jdk.jfr.EventType;
+
+import java.net.SocketAddress;
+
+// Lettuce times every command once this is installed; the event is only built while it is enabled
+public class JfrCommandLatencyRecorder implements CommandLatencyRecorder {
+
+    private static final EventType REDIS_COMMAND = EventType.getEventType(RedisCommandEvent.class);
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                                     long firstResponseLatency, long completionLatency) {
+        if (REDIS_COMMAND.isEnabled()) {
+            new RedisCommandEvent(commandType.toString(), String.valueOf(remote),
+                    firstResponseLatency, completionLatency).commit();
+        }
+    }
+}
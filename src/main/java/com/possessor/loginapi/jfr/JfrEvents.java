@@ -0,0 +1,100 @@
+package com.possessor.loginapi.jfr;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import jdk.jfr.EventType;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Reactive call sites for the custom JFR events. Each helper checks whether its event type is
+ * enabled and returns the source untouched when no recording wants it, so nothing is allocated or
+ * timed while JFR is off.
+ */
+public final class JfrEvents {
+
+    private static final EventType TOKEN_SERVICE_CALL = EventType.getEventType(TokenServiceCallEvent.class);
+    private static final EventType DATABASE_QUERY = EventType.getEventType(DatabaseQueryEvent.class);
+
+    private JfrEvents() {
+    }
+
+    public static <T> Mono<T> tokenServiceCall(String operation, Mono<T> call) {
+        if (!TOKEN_SERVICE_CALL.isEnabled()) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            TokenServiceCallEvent event = new TokenServiceCallEvent(operation);
+            event.begin();
+            return call.doFinally(signal -> {
+                event.setOutcome(signal.name());
+                event.commit();
+            });
+        });
+    }
+
+    // Decided per checkout: connections taken from the pool while a recording is running report
+    // every statement they execute
+    public static Connection recordQueries(Connection connection) {
+        if (!DATABASE_QUERY.isEnabled()) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(JfrEvents.class.getClassLoader(),
+                new Class<?>[]{Connection.class, Wrapped.class}, new Forwarding(connection, null));
+    }
+
+    private static Publisher<?> recordQuery(String sql, Publisher<?> results) {
+        return Flux.defer(() -> {
+            DatabaseQueryEvent event = new DatabaseQueryEvent(sql);
+            event.begin();
+            return Flux.from(results)
+                    .doOnError(error -> event.setFailed(true))
+                    .doFinally(signal -> event.commit());
+        });
+    }
+
+    // Forwards to the target, keeps fluent calls on the proxy and wraps statements and their results
+    private record Forwarding(Object target, String sql) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "unwrap":
+                    if (args == null) {
+                        return target;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result == target) {
+                return proxy;
+            }
+            if (result instanceof Statement statement && "createStatement".equals(method.getName())) {
+                return Proxy.newProxyInstance(JfrEvents.class.getClassLoader(),
+                        new Class<?>[]{Statement.class}, new Forwarding(statement, (String) args[0]));
+            }
+            if (sql != null && "execute".equals(method.getName())) {
+                return recordQuery(sql, (Publisher<?>) result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.possessor.loginapi.jfr;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Hashing is CPU-bound and synchronous, so the event brackets the call on the calling thread
+@RequiredArgsConstructor
+public class JfrPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final int cost;
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordHashEvent event = new PasswordHashEvent("encode", cost);
+        event.begin();
+        String encoded = delegate.encode(rawPassword);
+        event.commit();
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordHashEvent event = new PasswordHashEvent("matches", cost);
+        event.begin();
+        boolean matched = delegate.matches(rawPassword, encodedPassword);
+        event.setMatched(matched);
+        event.commit();
+        return matched;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,141 @@
+package com.possessor.loginapi.jfr;
+
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * On-demand flight recordings. Every recording is bounded: its duration is capped at
+ * {@code app.jfr.max-duration} and its on-disk size at {@code app.jfr.max-size}. Only one runs at a
+ * time, and only the last {@code app.jfr.retained} are kept for download.
+ */
+@Component
+@Slf4j
+public class JfrRecordings {
+
+    private static final String NAME_PREFIX = "login-api-";
+
+    private final Duration maxDuration;
+    private final long maxSize;
+    private final int retained;
+    private final Deque<Recording> recordings = new ArrayDeque<>();
+    private final Map<Long, Path> dumps = new HashMap<>();
+
+    public JfrRecordings(@Value("${app.jfr.max-duration:5m}") Duration maxDuration,
+                         @Value("${app.jfr.max-size:100MB}") DataSize maxSize,
+                         @Value("${app.jfr.retained:3}") int retained) {
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize.toBytes();
+        this.retained = Math.max(1, retained);
+    }
+
+    // settings names a JDK configuration: "default" (about 1% overhead) or "profile"
+    public synchronized Map<String, Object> start(Duration duration, String settings) throws IOException, ParseException {
+        if (recordings.stream().anyMatch(recording -> recording.getState() == RecordingState.RUNNING)) {
+            return Map.of("started", false, "reason", "A recording is already running");
+        }
+        while (recordings.size() >= retained) {
+            discard(recordings.removeFirst());
+        }
+        Duration bounded = duration == null || duration.compareTo(maxDuration) > 0 ? maxDuration : duration;
+        Recording recording = new Recording(Configuration.getConfiguration(settings != null ? settings : "default"));
+        recording.setName(NAME_PREFIX + System.currentTimeMillis());
+        recording.setDuration(bounded);
+        recording.setMaxSize(maxSize);
+        recording.setToDisk(true);
+        recording.start();
+        recordings.addLast(recording);
+        log.info("Started flight recording {} for {}", recording.getId(), bounded);
+        return describe(recording);
+    }
+
+    public synchronized Optional<Map<String, Object>> stop(long id) {
+        return find(id).map(recording -> {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+                log.info("Stopped flight recording {}", id);
+            }
+            return describe(recording);
+        });
+    }
+
+    // A running recording is dumped as far as it has got; each recording reuses one dump file
+    public synchronized Optional<Path> dump(long id) throws IOException {
+        Optional<Recording> recording = find(id);
+        if (recording.isEmpty()) {
+            return Optional.empty();
+        }
+        Path file = dumps.get(id);
+        if (file == null) {
+            file = Files.createTempFile(recording.get().getName(), ".jfr");
+            dumps.put(id, file);
+        }
+        Files.deleteIfExists(file);
+        recording.get().dump(file);
+        return Optional.of(file);
+    }
+
+    public synchronized boolean close(long id) {
+        Optional<Recording> recording = find(id);
+        recording.ifPresent(found -> {
+            recordings.remove(found);
+            discard(found);
+        });
+        return recording.isPresent();
+    }
+
+    public synchronized List<Map<String, Object>> list() {
+        return recordings.stream().map(JfrRecordings::describe).toList();
+    }
+
+    @PreDestroy
+    public synchronized void closeAll() {
+        recordings.forEach(this::discard);
+        recordings.clear();
+    }
+
+    private void discard(Recording recording) {
+        recording.close();
+        Path file = dumps.remove(recording.getId());
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete recording dump {}", file, e);
+            }
+        }
+    }
+
+    private Optional<Recording> find(long id) {
+        return recordings.stream().filter(recording -> recording.getId() == id).findFirst();
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("id", recording.getId());
+        description.put("name", recording.getName());
+        description.put("state", recording.getState());
+        description.put("startTime", recording.getStartTime());
+        description.put("duration", recording.getDuration());
+        description.put("size", recording.getSize());
+        return description;
+    }
+}
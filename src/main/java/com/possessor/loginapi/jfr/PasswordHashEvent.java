@@ -0,0 +1,32 @@
+package com.possessor.loginapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.possessor.loginapi.PasswordHash")
+@Label("Password Hash")
+@Description("BCrypt encode or match of a password")
+@Category({"Login API", "Security"})
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Cost")
+    private final int cost;
+
+    @Label("Matched")
+    private boolean matched;
+
+    public PasswordHashEvent(String operation, int cost) {
+        this.operation = operation;
+        this.cost = cost;
+    }
+
+    public void setMatched(boolean matched) {
+        this.matched = matched;
+    }
+}
@@ -0,0 +1,37 @@
+package com.possessor.loginapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Committed by the Lettuce I/O thread when the reply completes; the latencies are Lettuce's own
+@Name("com.possessor.loginapi.RedisCommand")
+@Label("Redis Command")
+@Description("Latency of one Redis command as measured by the client")
+@Category({"Login API", "Redis"})
+public class RedisCommandEvent extends Event {
+
+    @Label("Command")
+    private final String command;
+
+    @Label("Server")
+    private final String server;
+
+    @Label("First Response")
+    @Timespan(Timespan.NANOSECONDS)
+    private final long firstResponse;
+
+    @Label("Completion")
+    @Timespan(Timespan.NANOSECONDS)
+    private final long completion;
+
+    public RedisCommandEvent(String command, String server, long firstResponse, long completion) {
+        this.command = command;
+        this.server = server;
+        this.firstResponse = firstResponse;
+        this.completion = completion;
+    }
+}
@@ -0,0 +1,28 @@
+package com.possessor.loginapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.possessor.loginapi.TokenServiceCall")
+@Label("Token Service Call")
+@Description("One attempt at a token service call, hedges and retries included")
+@Category({"Login API", "Token Service"})
+public class TokenServiceCallEvent extends Event {
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Outcome")
+    private String outcome;
+
+    public TokenServiceCallEvent(String operation) {
+        this.operation = operation;
+    }
+
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+}
@@ -0,0 +1,21 @@
+package com.possessor.loginapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.possessor.loginapi.TokenVerification")
+@Label("Token Verification")
+@Description("Signature check and claim parsing of a bearer token")
+@Category({"Login API", "Security"})
+public class TokenVerificationEvent extends Event {
+
+    @Label("Valid")
+    private boolean valid;
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+}
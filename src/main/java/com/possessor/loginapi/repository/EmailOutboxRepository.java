@@ -0,0 +1,45 @@
+package com.possessor.loginapi.repository;
+
+import com.possessor.loginapi.entity.EmailOutbox;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface EmailOutboxRepository extends R2dbcRepository<EmailOutbox, Long> {
+
+    // SKIP LOCKED lets several instances claim disjoint batches; the lease hands rows claimed by a
+    // crashed instance back once it runs out
+    @Query("UPDATE email_outbox SET lease_until = :leaseUntil WHERE id IN (" +
+           "SELECT id FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+           "AND (lease_until IS NULL OR lease_until < :now) " +
+           "ORDER BY next_attempt_at LIMIT :batchSize FOR UPDATE SKIP LOCKED) " +
+           "RETURNING *")
+    Flux<EmailOutbox> claimBatch(LocalDateTime now, LocalDateTime leaseUntil, int batchSize);
+
+    @Modifying
+    @Query("UPDATE email_outbox SET status = 'SENT', sent_at = :now, payload = NULL, lease_until = NULL, " +
+           "attempts = attempts + 1 WHERE id IN (:ids)")
+    Mono<Integer> markSent(Collection<Long> ids, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE email_outbox SET attempts = :attempts, next_attempt_at = :nextAttemptAt, lease_until = NULL, " +
+           "last_error = :lastError WHERE id = :id")
+    Mono<Integer> markRetry(Long id, int attempts, LocalDateTime nextAttemptAt, String lastError);
+
+    @Modifying
+    @Query("UPDATE email_outbox SET status = 'FAILED', attempts = :attempts, payload = NULL, lease_until = NULL, " +
+           "last_error = :lastError WHERE id = :id")
+    Mono<Integer> markFailed(Long id, int attempts, String lastError);
+
+    @Modifying
+    @Query("DELETE FROM email_outbox WHERE id IN (" +
+           "SELECT id FROM email_outbox WHERE status <> 'PENDING' AND created_at < :cutoff LIMIT :batchSize)")
+    Mono<Integer> deleteFinishedBatch(LocalDateTime cutoff, int batchSize);
+}
@@ -0,0 +1,22 @@
+package com.possessor.loginapi.repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public final class ReadRouting {
+    
+    public static final String READ_ONLY_SESSION_KEY = ReadRouting.class.getName() + ".session";
+    
+    private ReadRouting() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+    
+    // Marks a lookup as safe to serve from a replica unless the session wrote recently
+    public static <T> Mono<T> readOnly(Mono<T> query, String session) {
+        return query.contextWrite(context -> context.put(READ_ONLY_SESSION_KEY, session));
+    }
+    
+    public static <T> Flux<T> readOnly(Flux<T> query, String session) {
+        return query.contextWrite(context -> context.put(READ_ONLY_SESSION_KEY, session));
+    }
+}
@@ -0,0 +1,50 @@
+package com.possessor.loginapi.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.possessor.loginapi.constants.MetricsConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class ReadYourWritesTracker {
+    
+    private final Cache<String, Boolean> recentWrites;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    
+    public ReadYourWritesTracker(@Value("${app.db.replicas.read-your-writes-window:5s}") Duration window,
+                                 @Value("${app.db.replicas.read-your-writes-max-sessions:100000}") long maxSessions,
+                                 MeterRegistry meterRegistry) {
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxSessions)
+                .build();
+        this.primaryRoutes = Counter.builder(MetricsConstants.DB_ROUTE)
+                .description(MetricsConstants.DB_ROUTE_DESC)
+                .tag("target", "primary")
+                .register(meterRegistry);
+        this.replicaRoutes = Counter.builder(MetricsConstants.DB_ROUTE)
+                .description(MetricsConstants.DB_ROUTE_DESC)
+                .tag("target", "replica")
+                .register(meterRegistry);
+    }
+    
+    public void recordWrite(String session) {
+        if (session != null) {
+            recentWrites.put(session, Boolean.TRUE);
+        }
+    }
+    
+    public boolean hasRecentWrite(String session) {
+        return recentWrites.getIfPresent(session) != null;
+    }
+    
+    public void recordRoute(boolean replica) {
+        (replica ? replicaRoutes : primaryRoutes).increment();
+    }
+}
@@ -0,0 +1,107 @@
+package com.possessor.loginapi.repository;
+
+import com.possessor.loginapi.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+/**
+ * Moves whole buckets between shards while the service stays up: the bucket is marked MOVING
+ * (writes to it are rejected, reads keep hitting the source), its users are copied with their ids,
+ * and the bucket map is flipped. Until the flip a failure puts the bucket back on the source and
+ * drops the partial copy. After it the target owns the bucket, and only the source cleanup is
+ * retried: once every node has picked up the new map, live tokens and pending emails are moved
+ * and the source rows are deleted. A user whose id predates its shard's id range and collides on
+ * the target fails the copy, so the bucket stays where it is.
+ */
+@Component
+@Slf4j
+public class ShardRebalancer {
+    
+    private static final Retry CLEANUP_RETRY = Retry.backoff(5, Duration.ofSeconds(1));
+    
+    private final ShardRouter shardRouter;
+    private final R2dbcEntityTemplate template;
+    private final Duration propagationDelay;
+    private final int copyConcurrency;
+    
+    public ShardRebalancer(ShardRouter shardRouter, R2dbcEntityTemplate template,
+                           @Value("${app.db.shards.map-refresh-interval:PT10S}") Duration mapRefreshInterval,
+                           @Value("${app.db.shards.copy-concurrency:16}") int copyConcurrency) {
+        this.shardRouter = shardRouter;
+        this.template = template;
+        this.propagationDelay = mapRefreshInterval.multipliedBy(2);
+        this.copyConcurrency = copyConcurrency;
+    }
+    
+    // Moves half of the source shard's buckets to the target shard
+    public Mono<Long> split(int sourceShard, int targetShard) {
+        int[] buckets = IntStream.range(0, ShardRouter.BUCKET_COUNT)
+                .filter(bucket -> shardRouter.shardOfBucket(bucket) == sourceShard)
+                .toArray();
+        return moveBuckets(IntStream.range(0, buckets.length / 2).map(i -> buckets[i * 2]).toArray(), targetShard);
+    }
+    
+    public Mono<Long> moveBuckets(int[] buckets, int targetShard) {
+        return Flux.fromStream(IntStream.of(buckets).boxed())
+                .concatMap(bucket -> moveBucket(bucket, targetShard))
+                .reduce(0L, Long::sum);
+    }
+    
+    public Mono<Long> moveBucket(int bucket, int targetShard) {
+        if (!shardRouter.isEnabled() || targetShard < 0 || targetShard >= shardRouter.shardCount()) {
+            return Mono.error(new IllegalArgumentException("Unknown target shard: " + targetShard));
+        }
+        int sourceShard = shardRouter.shardOfBucket(bucket);
+        if (sourceShard == targetShard) {
+            return Mono.just(0L);
+        }
+        
+        Query inBucket = Query.query(where("shardBucket").is(bucket));
+        
+        Mono<Long> copyAndFlip = shardRouter.assignBucket(bucket, sourceShard, true)
+                .then(Mono.delay(propagationDelay))
+                .then(shardRouter.onShard(targetShard, template.delete(User.class).matching(inBucket).all()))
+                .thenMany(shardRouter.onShard(sourceShard, template.select(User.class).matching(inBucket).all()))
+                .flatMap(user -> shardRouter.copyUser(user, targetShard), copyConcurrency)
+                .count()
+                .flatMap(copied -> shardRouter.assignBucket(bucket, targetShard, false).thenReturn(copied))
+                .onErrorResume(error -> {
+                    log.error("Failed to move bucket {} to shard {}, restoring source", bucket, targetShard, error);
+                    return shardRouter.onShard(targetShard, template.delete(User.class).matching(inBucket).all())
+                            .onErrorResume(cleanup -> {
+                                log.warn("Failed to drop partial copy of bucket {} on shard {}", bucket, targetShard, cleanup);
+                                return Mono.empty();
+                            })
+                            .then(shardRouter.assignBucket(bucket, sourceShard, false))
+                            .then(Mono.error(error));
+                });
+        
+        return copyAndFlip
+                .flatMap(copied -> Mono.delay(propagationDelay)
+                        .then(cleanUpSource(inBucket, sourceShard, targetShard).retryWhen(CLEANUP_RETRY))
+                        .doOnError(error -> log.error("Bucket {} now lives on shard {}, but cleaning up shard {} failed; "
+                                + "rerun the move to finish it", bucket, targetShard, sourceShard, error))
+                        .thenReturn(copied))
+                .doOnSuccess(copied -> log.info("Moved bucket {} from shard {} to shard {} ({} users)",
+                        bucket, sourceShard, targetShard, copied));
+    }
+    
+    // Deleting the users cascades to whatever dependents were not worth moving
+    private Mono<Void> cleanUpSource(Query inBucket, int sourceShard, int targetShard) {
+        return shardRouter.onShard(sourceShard, template.select(User.class).matching(inBucket).all())
+                .flatMap(user -> shardRouter.moveDependents(user.getId(), sourceShard, targetShard), copyConcurrency)
+                .then(shardRouter.onShard(sourceShard, template.delete(User.class).matching(inBucket).all()))
+                .then();
+    }
+}
@@ -0,0 +1,411 @@
+package com.possessor.loginapi.repository;
+
+import com.possessor.loginapi.constants.ErrorMessages;
+import com.possessor.loginapi.entity.EmailOutbox;
+import com.possessor.loginapi.entity.User;
+import com.possessor.loginapi.entity.UserToken;
+import com.possessor.loginapi.enums.EmailOutboxStatus;
+import com.possessor.loginapi.exception.ShardUnavailableException;
+import com.possessor.loginapi.exception.UserAlreadyExistsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32C;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+/**
+ * Routes user data to a shard by hashing the normalized username into one of {@link #BUCKET_COUNT}
+ * buckets; the bucket-to-shard map lives in the directory database together with the
+ * email-to-username directory that keeps emails unique across shards. With no shards configured
+ * every method passes straight through to the single database.
+ */
+@Component
+@Slf4j
+public class ShardRouter {
+    
+    public static final String SHARD_KEY = ShardRouter.class.getName() + ".shard";
+    public static final int BUCKET_COUNT = 1024;
+    // Each shard allocates user ids from its own range, so a moved user keeps its id on the target
+    public static final long ID_RANGE = 1L << 40;
+    
+    private static final String STATE_ACTIVE = "ACTIVE";
+    private static final String STATE_MOVING = "MOVING";
+    private static final Retry RENAME_CLEANUP_RETRY = Retry.backoff(3, Duration.ofMillis(100));
+    
+    private final DatabaseClient databaseClient;
+    private final R2dbcEntityTemplate template;
+    private final UserRepository userRepository;
+    private final int shardCount;
+    private final AtomicBoolean seeded = new AtomicBoolean();
+    private volatile BucketMap bucketMap;
+    
+    public ShardRouter(DatabaseClient databaseClient, R2dbcEntityTemplate template, UserRepository userRepository,
+                       @Value("${app.db.shards.urls:}") List<String> shardUrls) {
+        this.databaseClient = databaseClient;
+        this.template = template;
+        this.userRepository = userRepository;
+        this.shardCount = (int) shardUrls.stream().filter(StringUtils::hasText).count();
+        this.bucketMap = BucketMap.initial(Math.max(shardCount, 1));
+    }
+    
+    public boolean isEnabled() {
+        return shardCount > 0;
+    }
+    
+    public int shardCount() {
+        return shardCount;
+    }
+    
+    public static int bucketOf(String username) {
+        CRC32C crc = new CRC32C();
+        crc.update(username.toLowerCase().getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % BUCKET_COUNT);
+    }
+    
+    public int shardOfBucket(int bucket) {
+        return bucketMap.shards[bucket];
+    }
+    
+    public int shardOf(String username) {
+        return shardOfBucket(bucketOf(username));
+    }
+    
+    public <T> Mono<T> onShard(int shard, Mono<T> work) {
+        return work.contextWrite(context -> context.put(SHARD_KEY, shard));
+    }
+    
+    public <T> Flux<T> onShard(int shard, Flux<T> work) {
+        return work.contextWrite(context -> context.put(SHARD_KEY, shard));
+    }
+    
+    public <T> Mono<T> onUsernameShard(String username, Mono<T> work) {
+        return isEnabled() ? onShard(shardOf(username), work) : work;
+    }
+    
+    // Writes to a bucket that is being moved are rejected so the copy cannot miss them
+    public <T> Mono<T> forWrite(String username, Mono<T> work) {
+        if (!isEnabled()) {
+            return work;
+        }
+        int bucket = bucketOf(username);
+        BucketMap map = bucketMap;
+        if (map.moving[bucket]) {
+            return Mono.error(new ShardUnavailableException(ErrorMessages.SHARD_MOVING_ERROR));
+        }
+        return onShard(map.shards[bucket], work);
+    }
+    
+    public <T> Mono<T> onEmailShard(String email, Mono<T> work) {
+        if (!isEnabled()) {
+            return work;
+        }
+        return ownerOfEmail(email).flatMap(username -> onUsernameShard(username, work));
+    }
+    
+    // Scatter to every shard and keep the first hit; for lookups with no routing key
+    public <T> Mono<T> onAnyShard(Mono<T> work) {
+        if (!isEnabled()) {
+            return work;
+        }
+        return Flux.range(0, shardCount)
+                .flatMap(shard -> onShard(shard, work))
+                .next();
+    }
+    
+    public <T> Flux<T> onEachShard(Mono<T> work) {
+        if (!isEnabled()) {
+            return Flux.from(work);
+        }
+        return Flux.range(0, shardCount)
+                .concatMap(shard -> onShard(shard, work));
+    }
+    
+    public Mono<Boolean> isEmailRegistered(String email) {
+        if (!isEnabled()) {
+            return userRepository.existsByEmail(email);
+        }
+        return ownerOfEmail(email).hasElement();
+    }
+    
+    public Mono<User> save(User user, String previousUsername, String previousEmail) {
+        user.setShardBucket(bucketOf(user.getUsername()));
+        if (!isEnabled()) {
+            return userRepository.save(user);
+        }
+        
+        String username = user.getUsername();
+        String email = user.getEmail();
+        boolean newUser = previousUsername == null;
+        String ownerBefore = newUser ? username : previousUsername;
+        boolean usernameChanged = !newUser && !previousUsername.equals(username);
+        boolean emailChanged = !newUser && previousEmail != null && !previousEmail.equals(email);
+        
+        Mono<Void> directory;
+        if (newUser || emailChanged) {
+            directory = reserveEmail(email, username)
+                    .flatMap(reserved -> reserved
+                            ? Mono.<Void>empty()
+                            : Mono.error(new UserAlreadyExistsException(ErrorMessages.EMAIL_EXISTS_ERROR)));
+        } else if (usernameChanged) {
+            directory = reassignEmail(email, previousUsername, username);
+        } else {
+            directory = Mono.empty();
+        }
+        
+        Mono<User> write;
+        if (usernameChanged && shardOf(previousUsername) != shardOf(username)) {
+            // The user keeps its id on the new shard, like a rebalanced one. Once the copy exists the
+            // rename has taken effect, so a failed cleanup is retried and logged, never rolled back
+            int sourceShard = shardOf(previousUsername);
+            int targetShard = shardOf(username);
+            write = forWrite(previousUsername, Mono.<Void>empty())
+                    .then(forWrite(username, copyUser(user, targetShard)))
+                    .then(moveDependents(user.getId(), sourceShard, targetShard)
+                            .then(onShard(sourceShard, userRepository.deleteById(user.getId())))
+                            .retryWhen(RENAME_CLEANUP_RETRY)
+                            .onErrorResume(error -> {
+                                log.error("Renamed user {} to shard {}, but cleaning up shard {} failed",
+                                        user.getId(), targetShard, sourceShard, error);
+                                return Mono.empty();
+                            }))
+                    .thenReturn(user);
+        } else {
+            write = forWrite(username, userRepository.save(user));
+        }
+        
+        return directory
+                .then(write)
+                .flatMap(saved -> emailChanged
+                        ? releaseEmail(previousEmail, ownerBefore).thenReturn(saved)
+                        : Mono.just(saved))
+                .onErrorResume(error -> newUser || emailChanged
+                        ? releaseEmail(email, username).then(Mono.error(error))
+                        : Mono.error(error));
+    }
+    
+    public Mono<Void> delete(User user) {
+        if (!isEnabled()) {
+            return userRepository.delete(user);
+        }
+        return forWrite(user.getUsername(), userRepository.delete(user))
+                .then(releaseEmail(user.getEmail(), user.getUsername()));
+    }
+    
+    public Mono<Void> assignBucket(int bucket, int shard, boolean moving) {
+        return databaseClient.sql("UPDATE shard_buckets SET shard_id = :shard, state = :state WHERE bucket = :bucket")
+                .bind("shard", shard)
+                .bind("state", moving ? STATE_MOVING : STATE_ACTIVE)
+                .bind("bucket", bucket)
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(rows -> bucketMap = bucketMap.with(bucket, shard, moving))
+                .then();
+    }
+    
+    public Map<String, Object> describe() {
+        BucketMap map = bucketMap;
+        int[] bucketsPerShard = new int[Math.max(shardCount, 1)];
+        int moving = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            bucketsPerShard[map.shards[bucket]]++;
+            if (map.moving[bucket]) {
+                moving++;
+            }
+        }
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("enabled", isEnabled());
+        description.put("shards", shardCount);
+        description.put("buckets", BUCKET_COUNT);
+        description.put("bucketsPerShard", bucketsPerShard);
+        description.put("movingBuckets", moving);
+        return description;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.db.shards.map-refresh-interval:PT10S}")
+    public Mono<Void> refreshBucketMap() {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        
+        Mono<Void> seed = seeded.get() ? Mono.empty() : databaseClient.sql(
+                        "INSERT INTO shard_buckets (bucket, shard_id, state) " +
+                        "SELECT b, b % :shards, 'ACTIVE' FROM generate_series(0, :last) AS b " +
+                        "ON CONFLICT (bucket) DO NOTHING")
+                .bind("shards", shardCount)
+                .bind("last", BUCKET_COUNT - 1)
+                .fetch()
+                .rowsUpdated()
+                .then(reserveIdRanges())
+                .doOnSuccess(ignored -> seeded.set(true));
+        
+        return seed
+                .thenMany(databaseClient.sql("SELECT bucket, shard_id, state FROM shard_buckets")
+                        .map((row, metadata) -> new int[] {
+                                row.get("bucket", Integer.class),
+                                row.get("shard_id", Integer.class),
+                                STATE_MOVING.equals(row.get("state", String.class)) ? 1 : 0 })
+                        .all())
+                .collectList()
+                .doOnNext(rows -> {
+                    BucketMap refreshed = BucketMap.initial(shardCount);
+                    for (int[] row : rows) {
+                        if (row[1] >= shardCount) {
+                            log.warn("Bucket {} mapped to unknown shard {}, keeping default", row[0], row[1]);
+                            continue;
+                        }
+                        refreshed.shards[row[0]] = row[1];
+                        refreshed.moving[row[0]] = row[2] == 1;
+                    }
+                    bucketMap = refreshed;
+                })
+                .doOnError(error -> log.error("Failed to refresh shard bucket map", error))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+    
+    // Inserted with its id; login activity columns are read-only on the entity, so they are copied explicitly
+    Mono<Long> copyUser(User user, int targetShard) {
+        return onShard(targetShard, template.insert(user)
+                .flatMap(copy -> template.update(User.class)
+                        .matching(Query.query(where("id").is(copy.getId())))
+                        .apply(Update.update("lastLoginAt", user.getLastLoginAt())
+                                .set("failedLoginCount", user.getFailedLoginCount())
+                                .set("lastFailedLoginAt", user.getLastFailedLoginAt()))));
+    }
+    
+    // Moves live tokens and pending emails ahead of deleting the source user, whose cascade would
+    // drop them. Each row is inserted on the target before it is deleted from the source, so a
+    // retry picks up where the last attempt stopped
+    Mono<Void> moveDependents(Long userId, int sourceShard, int targetShard) {
+        return moveTokens(userId, sourceShard, targetShard).then(moveOutbox(userId, sourceShard, targetShard));
+    }
+    
+    private Mono<Void> moveTokens(Long userId, int sourceShard, int targetShard) {
+        Query live = Query.query(where("userId").is(userId)
+                .and("consumedAt").isNull()
+                .and("expiresAt").greaterThan(LocalDateTime.now()));
+        return onShard(sourceShard, template.select(UserToken.class).matching(live).all())
+                .concatMap(token -> {
+                    Long sourceId = token.getId();
+                    token.setId(null);
+                    // A token copied by an earlier attempt is already live on the target
+                    return onShard(targetShard, template.insert(token).then())
+                            .onErrorResume(DuplicateKeyException.class, duplicate -> Mono.empty())
+                            .then(onShard(sourceShard, template.delete(UserToken.class)
+                                    .matching(Query.query(where("id").is(sourceId))).all()));
+                })
+                .then();
+    }
+    
+    // An email being sent from the source right now may go out twice; none is lost
+    private Mono<Void> moveOutbox(Long userId, int sourceShard, int targetShard) {
+        Query pending = Query.query(where("userId").is(userId).and("status").is(EmailOutboxStatus.PENDING));
+        return onShard(sourceShard, template.select(EmailOutbox.class).matching(pending).all())
+                .concatMap(email -> {
+                    Long sourceId = email.getId();
+                    email.setId(null);
+                    email.setLeaseUntil(null);
+                    return onShard(targetShard, template.insert(email))
+                            .then(onShard(sourceShard, template.delete(EmailOutbox.class)
+                                    .matching(Query.query(where("id").is(sourceId))).all()));
+                })
+                .then();
+    }
+    
+    // Moves each shard's user id sequence to the start of its range; shard 0 keeps the low range
+    private Mono<Void> reserveIdRanges() {
+        return Flux.range(1, shardCount - 1)
+                .concatMap(shard -> onShard(shard, databaseClient.sql(
+                                "SELECT setval('users_id_seq', :floor) FROM users_id_seq WHERE last_value < :floor")
+                        .bind("floor", shard * ID_RANGE)
+                        .fetch()
+                        .all()))
+                .then();
+    }
+    
+    private Mono<String> ownerOfEmail(String email) {
+        return databaseClient.sql("SELECT username FROM email_shard_directory WHERE email = :email")
+                .bind("email", email)
+                .map((row, metadata) -> row.get("username", String.class))
+                .one();
+    }
+    
+    // Idempotent for the same owner so register retries do not trip over their own reservation
+    private Mono<Boolean> reserveEmail(String email, String username) {
+        return databaseClient.sql(
+                        "INSERT INTO email_shard_directory (email, username) VALUES (:email, :username) " +
+                        "ON CONFLICT (email) DO UPDATE SET username = EXCLUDED.username " +
+                        "WHERE email_shard_directory.username = EXCLUDED.username")
+                .bind("email", email)
+                .bind("username", username)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+    
+    private Mono<Void> reassignEmail(String email, String previousUsername, String username) {
+        return databaseClient.sql("UPDATE email_shard_directory SET username = :username " +
+                        "WHERE email = :email AND username = :previous")
+                .bind("username", username)
+                .bind("email", email)
+                .bind("previous", previousUsername)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+    
+    private Mono<Void> releaseEmail(String email, String username) {
+        return databaseClient.sql("DELETE FROM email_shard_directory WHERE email = :email AND username = :username")
+                .bind("email", email)
+                .bind("username", username)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+    
+    private static final class BucketMap {
+        private final int[] shards;
+        private final boolean[] moving;
+        
+        private BucketMap(int[] shards, boolean[] moving) {
+            this.shards = shards;
+            this.moving = moving;
+        }
+        
+        private static BucketMap initial(int shardCount) {
+            int[] shards = new int[BUCKET_COUNT];
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                shards[bucket] = bucket % shardCount;
+            }
+            return new BucketMap(shards, new boolean[BUCKET_COUNT]);
+        }
+        
+        private BucketMap with(int bucket, int shard, boolean movingState) {
+            int[] nextShards = Arrays.copyOf(shards, shards.length);
+            boolean[] nextMoving = Arrays.copyOf(moving, moving.length);
+            nextShards[bucket] = shard;
+            nextMoving[bucket] = movingState;
+            return new BucketMap(nextShards, nextMoving);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.possessor.loginapi.repository;
 
 import com.possessor.loginapi.entity.User;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
@@ -9,8 +10,16 @@ import reactor.core.publisher.Mono;
 public interface UserRepository extends R2dbcRepository<User, Long> {
     Mono<User> findByUsername(String username);
     Mono<User> findByEmail(String email);
-    Mono<User> findByResetToken(String resetToken);
-    Mono<User> findByVerificationToken(String verificationToken);
     Mono<Boolean> existsByUsername(String username);
     Mono<Boolean> existsByEmail(String email);
-}
\ No newline at end of file
+
+    @Query("SELECT u.* FROM users u JOIN user_tokens t ON t.user_id = u.id " +
+           "WHERE t.token_hash = :tokenHash AND t.token_type = 'PASSWORD_RESET' " +
+           "AND t.consumed_at IS NULL AND t.expires_at > NOW()")
+    Mono<User> findByResetToken(String tokenHash);
+
+    @Query("SELECT u.* FROM users u JOIN user_tokens t ON t.user_id = u.id " +
+           "WHERE t.token_hash = :tokenHash AND t.token_type = 'EMAIL_VERIFICATION' " +
+           "AND t.consumed_at IS NULL AND t.expires_at > NOW()")
+    Mono<User> findByVerificationToken(String tokenHash);
+}
@@ -0,0 +1,29 @@
+package com.possessor.loginapi.repository;
+
+import com.possessor.loginapi.entity.UserToken;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface UserTokenRepository extends R2dbcRepository<UserToken, Long> {
+
+    @Modifying
+    @Query("UPDATE user_tokens SET consumed_at = :now " +
+           "WHERE user_id = :userId AND token_type = :tokenType AND consumed_at IS NULL")
+    Mono<Integer> consumeAllForUser(Long userId, String tokenType, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE user_tokens SET consumed_at = :now " +
+           "WHERE token_hash = :tokenHash AND token_type = :tokenType AND consumed_at IS NULL AND expires_at > :now")
+    Mono<Integer> consume(String tokenHash, String tokenType, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM user_tokens WHERE id IN (" +
+           "SELECT id FROM user_tokens WHERE expires_at < :now OR consumed_at IS NOT NULL LIMIT :batchSize)")
+    Mono<Integer> deleteStaleBatch(LocalDateTime now, int batchSize);
+}
@@ -1,6 +1,8 @@
 package com.possessor.loginapi.security;
 
 
+import com.possessor.loginapi.support.StageTimer;
+import io.jsonwebtoken.Claims;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
@@ -15,21 +17,25 @@ import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
 
-import java.util.Collections;
-
 @Component
 @RequiredArgsConstructor
 
 public class JwtAuthenticationFilter implements WebFilter {
     
     private final JwtUtil jwtUtil;
+    private final StageTimer stageTimer;
     
     @Override
 
     public Mono<Void> filter(@NotNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        return stageTimer.filter("jwt-auth", exchange, chain, this::authenticate);
+    }
+    
+    private Mono<Void> authenticate(ServerWebExchange exchange, WebFilterChain chain) {
         String path = exchange.getRequest().getPath().value();
         
-        if (path.startsWith("/api/auth/") || path.startsWith("/actuator/")) {
+        // Actuator is not skipped: its ADMIN check needs the role claim
+        if (path.startsWith("/api/auth/")) {
             return chain.filter(exchange);
         }
         
@@ -38,10 +44,10 @@ public class JwtAuthenticationFilter implements WebFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             
-            if (jwtUtil.isTokenValid(token)) {
-                String username = jwtUtil.extractUsername(token);
-                UsernamePasswordAuthenticationToken auth = 
-                    new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList());
+            Claims claims = jwtUtil.parseValidClaims(token);
+            if (claims != null && !jwtUtil.isRefreshToken(claims)) {
+                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                    claims.getSubject(), null, RoleBits.authorities(jwtUtil.extractRoles(claims)));
                 
                 return chain.filter(exchange)
                     .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
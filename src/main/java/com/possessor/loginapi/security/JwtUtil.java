@@ -1,36 +1,105 @@
 package com.possessor.loginapi.security;
 
+import com.possessor.loginapi.jfr.TokenVerificationEvent;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
     
+    public static final String TOKEN_USE_CLAIM = "use";
+    public static final String REFRESH_TOKEN_USE = "refresh";
+    
     @Value("${jwt.secret}")
     private String secret;
     
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    @Value("${jwt.refresh-expiration:604800000}")
+    private Long refreshExpiration;
+    
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    // The key and parser are immutable and thread-safe, so they are built once
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+    
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
     
     public String generateToken(String username) {
+        return generateToken(username, RoleBits.DEFAULT);
+    }
+    
+    public String generateToken(String username, int roles) {
         return Jwts.builder()
                 .subject(username)
+                .claim(RoleBits.CLAIM, roles)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(getSigningKey())
                 .compact();
     }
     
+    // Refresh tokens are marked so they can never be presented as access tokens
+    public String generateRefreshToken(String username, int roles) {
+        return Jwts.builder()
+                .subject(username)
+                .id(UUID.randomUUID().toString())
+                .claim(RoleBits.CLAIM, roles)
+                .claim(TOKEN_USE_CLAIM, REFRESH_TOKEN_USE)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + refreshExpiration))
+                .signWith(getSigningKey())
+                .compact();
+    }
+    
+    public boolean isRefreshToken(Claims claims) {
+        return REFRESH_TOKEN_USE.equals(claims.get(TOKEN_USE_CLAIM, String.class));
+    }
+    
+    public long getExpirationSeconds() {
+        return expiration / 1000;
+    }
+    
+    // Parses and verifies the token once; null when it is invalid or expired
+    public Claims parseValidClaims(String token) {
+        TokenVerificationEvent event = new TokenVerificationEvent();
+        event.begin();
+        Claims claims;
+        try {
+            claims = extractClaims(token);
+            if (claims.getExpiration().before(new Date())) {
+                claims = null;
+            }
+        } catch (Exception e) {
+            claims = null;
+        }
+        event.setValid(claims != null);
+        event.commit();
+        return claims;
+    }
+    
+    public int extractRoles(Claims claims) {
+        Integer roles = claims.get(RoleBits.CLAIM, Integer.class);
+        return roles != null ? roles : 0;
+    }
+    
     public String extractUsername(String token) {
         return extractClaims(token).getSubject();
     }
@@ -52,10 +121,7 @@ public class JwtUtil {
     }
     
     private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
+        return parser.parseSignedClaims(token)
                 .getPayload();
     }
     
@@ -0,0 +1,78 @@
+package com.possessor.loginapi.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Encrypts outbox payloads with AES-GCM, so a database dump alone does not yield usable reset or
+ * verification tokens. The key comes from {@code app.email.outbox.payload-key} (base64, 32 bytes)
+ * or, when unset, is derived from {@code jwt.secret}. Anyone holding both the key and the rows can
+ * still read pending tokens.
+ */
+@Component
+public class PayloadCipher {
+
+    private static final String PREFIX = "v1.";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKey key;
+    private final SecureRandom random = new SecureRandom();
+
+    public PayloadCipher(@Value("${app.email.outbox.payload-key:}") String payloadKey,
+                         @Value("${jwt.secret}") String jwtSecret) {
+        this.key = new SecretKeySpec(payloadKey.isBlank() ? derive(jwtSecret) : Base64.getDecoder().decode(payloadKey), "AES");
+    }
+
+    public String encrypt(String plaintext) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] sealed = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            byte[] out = ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array();
+            return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(out);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt payload", e);
+        }
+    }
+
+    // Rows queued before payloads were encrypted carry the plain token
+    public String decrypt(String payload) {
+        if (!payload.startsWith(PREFIX)) {
+            return payload;
+        }
+        try {
+            byte[] in = Base64.getUrlDecoder().decode(payload.substring(PREFIX.length()));
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, in, 0, IV_LENGTH));
+            return new String(cipher.doFinal(in, IV_LENGTH, in.length - IV_LENGTH), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Failed to decrypt payload", e);
+        }
+    }
+
+    // Domain-separated from the JWT signing key, which uses the secret's raw bytes
+    private static byte[] derive(String secret) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update("email-outbox-payload:".getBytes(StandardCharsets.UTF_8));
+            return digest.digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
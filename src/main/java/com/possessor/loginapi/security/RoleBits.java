@@ -0,0 +1,77 @@
+package com.possessor.loginapi.security;
+
+import com.possessor.loginapi.enums.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Encodes a user's roles as a bitmask over {@link UserRole} ordinals, the form stored in
+ * {@code users.roles} and carried in the {@value #CLAIM} token claim. Authority lists for every
+ * possible mask are built once, so resolving a token's authorities is an array lookup.
+ * New roles must be appended to the enum so existing masks keep their meaning.
+ */
+public final class RoleBits {
+    
+    public static final String CLAIM = "rol";
+    public static final int DEFAULT = of(UserRole.USER);
+    
+    private static final UserRole[] ROLES = UserRole.values();
+    private static final int ALL = (1 << ROLES.length) - 1;
+    private static final List<GrantedAuthority>[] AUTHORITIES = buildAuthorities();
+    
+    private RoleBits() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+    
+    public static int of(UserRole... roles) {
+        int mask = 0;
+        for (UserRole role : roles) {
+            mask |= 1 << role.ordinal();
+        }
+        return mask;
+    }
+    
+    public static int encode(Set<UserRole> roles) {
+        return of(roles.toArray(UserRole[]::new));
+    }
+    
+    public static Set<UserRole> decode(int mask) {
+        Set<UserRole> roles = EnumSet.noneOf(UserRole.class);
+        for (UserRole role : ROLES) {
+            if (has(mask, role)) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+    
+    public static boolean has(int mask, UserRole role) {
+        return (mask & (1 << role.ordinal())) != 0;
+    }
+    
+    // Shared, immutable lists; unknown bits from newer tokens are ignored
+    public static List<GrantedAuthority> authorities(int mask) {
+        return AUTHORITIES[mask & ALL];
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<GrantedAuthority>[] buildAuthorities() {
+        List<GrantedAuthority>[] authorities = new List[ALL + 1];
+        for (int mask = 0; mask <= ALL; mask++) {
+            List<GrantedAuthority> granted = new ArrayList<>();
+            for (UserRole role : ROLES) {
+                if (has(mask, role)) {
+                    granted.add(new SimpleGrantedAuthority("ROLE_" + role.name()));
+                }
+            }
+            authorities[mask] = Collections.unmodifiableList(granted);
+        }
+        return authorities;
+    }
+}
@@ -0,0 +1,177 @@
+package com.possessor.loginapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.possessor.loginapi.audit.AuditLog;
+import com.possessor.loginapi.constants.AuthConstants;
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.dto.AuthEvent;
+import com.possessor.loginapi.enums.AuthEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structured auth outcome events, one JSON line each on the {@code auth.events} logger. Recording
+ * only samples and enqueues; a single writer thread serializes and logs, so the request path never
+ * waits on the appender. Success events are sampled and may not take the last
+ * {@code reserved-capacity} queue slots, which keeps room for failure and security events when
+ * the writer falls behind. Everything that is not logged is counted. Every event, sampled or not,
+ * is also appended to the {@link AuditLog}.
+ */
+@Service
+@Slf4j
+public class AuthEventLog implements SmartLifecycle {
+    
+    private static final Logger EVENTS = LoggerFactory.getLogger("auth.events");
+    private static final int DRAIN_BATCH = 256;
+    private static final int MAX_DETAIL_LENGTH = 200;
+    
+    private final ObjectMapper objectMapper;
+    private final AuditLog auditLog;
+    private final BlockingQueue<AuthEvent> queue;
+    private final int reservedCapacity;
+    private final double successSampleRate;
+    private final Duration shutdownTimeout;
+    private final Counter written;
+    private final Counter sampledOut;
+    private final Counter overflowed;
+    private volatile boolean running;
+    private Thread writer;
+    
+    public AuthEventLog(ObjectMapper objectMapper, AuditLog auditLog, MeterRegistry meterRegistry,
+                        @Value("${app.auth-events.queue-capacity:16384}") int queueCapacity,
+                        @Value("${app.auth-events.reserved-capacity:2048}") int reservedCapacity,
+                        @Value("${app.auth-events.success-sample-rate:1.0}") double successSampleRate,
+                        @Value("${app.auth-events.shutdown-timeout:5s}") Duration shutdownTimeout) {
+        this.objectMapper = objectMapper;
+        this.auditLog = auditLog;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.reservedCapacity = reservedCapacity;
+        this.successSampleRate = successSampleRate;
+        this.shutdownTimeout = shutdownTimeout;
+        Gauge.builder(MetricsConstants.AUTH_EVENTS_QUEUE_SIZE, queue, BlockingQueue::size)
+                .description(MetricsConstants.AUTH_EVENTS_QUEUE_SIZE_DESC)
+                .register(meterRegistry);
+        this.written = Counter.builder(MetricsConstants.AUTH_EVENTS_WRITTEN)
+                .description(MetricsConstants.AUTH_EVENTS_WRITTEN_DESC)
+                .register(meterRegistry);
+        this.sampledOut = droppedCounter(meterRegistry, "sampled");
+        this.overflowed = droppedCounter(meterRegistry, "overflow");
+    }
+    
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(MetricsConstants.AUTH_EVENTS_DROPPED)
+                .description(MetricsConstants.AUTH_EVENTS_DROPPED_DESC)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+    
+    public void record(AuthEventType type, String subject) {
+        record(type, subject, null, null);
+    }
+    
+    public void record(AuthEventType type, String subject, String clientIp, String detail) {
+        // The MDC is read here, on the request's thread, where context propagation has set it
+        String correlationId = MDC.get(AuthConstants.CORRELATION_ID_KEY);
+        auditLog.append(type, subject, clientIp, correlationId);
+        if (type.getCategory() == AuthEventType.Category.SUCCESS) {
+            if (successSampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= successSampleRate) {
+                sampledOut.increment();
+                return;
+            }
+            if (queue.remainingCapacity() <= reservedCapacity) {
+                overflowed.increment();
+                return;
+            }
+        }
+        AuthEvent event = new AuthEvent(Instant.now(), type, type.getCategory(), subject, clientIp,
+                correlationId, truncate(detail));
+        if (!queue.offer(event)) {
+            overflowed.increment();
+        }
+    }
+    
+    public static String describe(Throwable error) {
+        return error.getClass().getSimpleName() + ": " + error.getMessage();
+    }
+    
+    private static String truncate(String detail) {
+        return detail != null && detail.length() > MAX_DETAIL_LENGTH ? detail.substring(0, MAX_DETAIL_LENGTH) : detail;
+    }
+    
+    private void drain() {
+        List<AuthEvent> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuthEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                batch.forEach(this::write);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private void write(AuthEvent event) {
+        try {
+            EVENTS.info(objectMapper.writeValueAsString(event));
+            written.increment();
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize auth event {}", event.getType(), e);
+        }
+    }
+    
+    @Override
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("auth-events").daemon(true).start(this::drain);
+    }
+    
+    // Stops after the web server has drained in-flight requests, so their events are written
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Dropped {} auth events at shutdown", queue.size());
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+    }
+}
@@ -1,6 +1,6 @@
 package com.possessor.loginapi.service;
 
-import com.possessor.loginapi.client.TokenClient;
+import com.possessor.loginapi.client.TokenIssuer;
 import com.possessor.loginapi.constants.AuthConstants;
 import com.possessor.loginapi.constants.ErrorMessages;
 import com.possessor.loginapi.constants.LogMessages;
@@ -8,106 +8,163 @@ import com.possessor.loginapi.constants.StatusMessages;
 import com.possessor.loginapi.constants.SuccessMessages;
 import com.possessor.loginapi.dto.*;
 import com.possessor.loginapi.entity.User;
+import com.possessor.loginapi.enums.AuthEventType;
+import com.possessor.loginapi.enums.TokenType;
 import com.possessor.loginapi.exception.AuthenticationException;
 import com.possessor.loginapi.exception.UserAlreadyExistsException;
+import com.possessor.loginapi.repository.ReadRouting;
+import com.possessor.loginapi.repository.ReadYourWritesTracker;
+import com.possessor.loginapi.repository.ShardRouter;
 import com.possessor.loginapi.repository.UserRepository;
 import com.possessor.loginapi.security.JwtUtil;
+import com.possessor.loginapi.security.TokenHasher;
+import com.possessor.loginapi.support.Deadlines;
+import com.possessor.loginapi.support.SingleFlight;
+import com.possessor.loginapi.support.StageTimer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuthService {
     
+    // Only reads are retried, only on failures another attempt can fix, and each attempt is bounded
+    // by what is left of the deadline
+    private static final Retry TRANSIENT_READ_RETRY = Retry
+            .backoff(AuthConstants.MAX_RETRY_ATTEMPTS, Duration.ofMillis(AuthConstants.RETRY_BACKOFF_MILLIS))
+            .filter(error -> error instanceof TransientDataAccessException || error instanceof DataAccessResourceFailureException)
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final EmailService emailService;
-    private final TokenClient tokenClient;
+    private final TokenIssuer tokenIssuer;
     private final SessionService sessionService;
+    private final UserTokenService userTokenService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ShardRouter shardRouter;
+    private final LoginActivityBuffer loginActivityBuffer;
+    private final RefreshTokenService refreshTokenService;
+    private final SingleFlight singleFlight;
+    private final TransactionalOperator transactionalOperator;
+    private final EmailThrottle emailThrottle;
+    private final StageTimer stageTimer;
+    private final AuthEventLog authEventLog;
+    private final Deadlines deadlines;
     
     public Mono<MessageResponse> register(RegisterRequest request) {
-        log.info(LogMessages.REGISTRATION_ATTEMPT, request.getUsername());
+        log.debug(LogMessages.REGISTRATION_ATTEMPT, request.getUsername());
         
-        return userRepository.existsByUsername(request.getUsername())
+        String username = request.getUsername().toLowerCase();
+        return stageTimer.time("register", "username-check",
+                        deadlines.bound(Deadlines.DATABASE,
+                                        shardRouter.onUsernameShard(username, userRepository.existsByUsername(username)))
+                                .retryWhen(TRANSIENT_READ_RETRY))
                 .flatMap(exists -> {
                     if (Boolean.TRUE.equals(exists)) {
                         return Mono.error(new UserAlreadyExistsException(ErrorMessages.USERNAME_EXISTS_ERROR));
                     }
-                    return userRepository.existsByEmail(request.getEmail());
+                    return stageTimer.time("register", "email-check",
+                            deadlines.bound(Deadlines.DATABASE, shardRouter.isEmailRegistered(request.getEmail().toLowerCase()))
+                                    .retryWhen(TRANSIENT_READ_RETRY));
                 })
                 .flatMap(exists -> {
                     if (Boolean.TRUE.equals(exists)) {
                         return Mono.error(new UserAlreadyExistsException(ErrorMessages.EMAIL_EXISTS_ERROR));
                     }
-                    
+                    return deadlines.guard(Deadlines.PASSWORD_HASH, Mono.fromCallable(() -> stageTimer.time(
+                            "register", "password-hash", () -> passwordEncoder.encode(request.getPassword()))));
+                })
+                .flatMap(passwordHash -> {
                     User user = new User();
                     user.setUsername(request.getUsername().toLowerCase());
                     user.setEmail(request.getEmail().toLowerCase());
-                    user.setPassword(passwordEncoder.encode(request.getPassword()));
+                    user.setPassword(passwordHash);
                     user.setCreatedAt(LocalDateTime.now());
                     user.setUpdatedAt(LocalDateTime.now());
                     
-                    return userRepository.save(user);
+                    // A sharded save reserves the email before writing the user and only compensates
+                    // on error, so it is never cancelled part-way
+                    return stageTimer.time("register", "user-save",
+                            deadlines.guard(Deadlines.DATABASE, shardRouter.save(user, null, null)));
                 })
                 .map(user -> {
-                    log.info(LogMessages.USER_REGISTERED_SUCCESS, user.getUsername());
+                    // Availability checks are keyed by username or by email
+                    readYourWritesTracker.recordWrite(user.getUsername());
+                    readYourWritesTracker.recordWrite(user.getEmail());
+                    log.debug(LogMessages.USER_REGISTERED_SUCCESS, user.getUsername());
                     return new MessageResponse(SuccessMessages.USER_CREATED_SUCCESS);
                 })
-                .retryWhen(Retry.backoff(AuthConstants.MAX_RETRY_ATTEMPTS, Duration.ofMillis(AuthConstants.RETRY_BACKOFF_MILLIS)))
-                .doOnError(error -> log.error(LogMessages.REGISTRATION_FAILED, request.getUsername(), error));
+                .doOnError(error -> log.debug(LogMessages.REGISTRATION_FAILED, request.getUsername(), error));
     }
     
     public Mono<AuthResponse> login(LoginRequest request) {
-        log.info(LogMessages.LOGIN_ATTEMPT, request.getUsername());
+        log.debug(LogMessages.LOGIN_ATTEMPT, request.getUsername());
         
-        return userRepository.findByUsername(request.getUsername().toLowerCase())
+        String username = request.getUsername().toLowerCase();
+        return stageTimer.time("login", "user-lookup", deadlines.bound(Deadlines.DATABASE, shardRouter.onUsernameShard(username,
+                        ReadRouting.readOnly(userRepository.findByUsername(username), username)))
+                        .retryWhen(TRANSIENT_READ_RETRY))
                 .switchIfEmpty(Mono.error(new AuthenticationException(ErrorMessages.INVALID_CREDENTIALS_ERROR)))
+                // Verification is not started once the deadline has passed
+                .flatMap(user -> deadlines.guard(Deadlines.PASSWORD_HASH, Mono.just(user)))
                 .flatMap(user -> {
-                    if (passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-                        log.info(LogMessages.CREDENTIALS_VALIDATED, user.getUsername());
-                        return tokenClient.generateToken(user.getUsername(), user.getEmail())
-                                .map(tokenResponse -> new AuthResponse(
+                    if (stageTimer.time("login", "password-verify",
+                            () -> passwordEncoder.matches(request.getPassword(), user.getPassword()))) {
+                        log.debug(LogMessages.CREDENTIALS_VALIDATED, user.getUsername());
+                        loginActivityBuffer.recordSuccess(user.getUsername());
+                        return Mono.zip(
+                                        stageTimer.time("login", "access-token",
+                                                tokenIssuer.generateToken(user.getUsername(), user.getEmail(), user.getRoles())),
+                                        stageTimer.time("login", "refresh-token",
+                                                refreshTokenService.issue(user.getUsername(), user.getEmail(), user.getRoles())))
+                                .map(tokens -> new AuthResponse(
                                     user.getUsername(),
                                     user.getEmail(),
-                                    tokenResponse.getAccessToken(),
-                                    tokenResponse.getRefreshToken(),
-                                    tokenResponse.getTokenType(),
-                                    tokenResponse.getExpiresIn()
+                                    tokens.getT1().getAccessToken(),
+                                    tokens.getT2(),
+                                    tokens.getT1().getTokenType(),
+                                    tokens.getT1().getExpiresIn()
                                 ));
                     }
-                    log.warn(LogMessages.INVALID_PASSWORD, request.getUsername());
+                    log.debug(LogMessages.INVALID_PASSWORD, request.getUsername());
+                    loginActivityBuffer.recordFailure(user.getUsername());
                     return Mono.error(new AuthenticationException(ErrorMessages.INVALID_CREDENTIALS_ERROR));
                 })
-                .doOnError(error -> log.error(LogMessages.LOGIN_FAILED, request.getUsername(), error.getMessage()));
+                .doOnError(error -> log.debug(LogMessages.LOGIN_FAILED, request.getUsername(), error.getMessage()));
     }
     
     @Cacheable(AuthConstants.USERS_CACHE)
     public Mono<User> findByUsername(String username) {
-        return userRepository.findByUsername(username.toLowerCase());
+        String normalized = username.toLowerCase();
+        return deadlines.bound(Deadlines.DATABASE, singleFlight.execute("user-by-username", normalized,
+                () -> shardRouter.onUsernameShard(normalized,
+                        ReadRouting.readOnly(userRepository.findByUsername(normalized), normalized))));
     }
     
     public Mono<MessageResponse> requestPasswordReset(String email) {
-        return userRepository.findByEmail(email.toLowerCase())
-                .flatMap(user -> {
-                    String resetToken = UUID.randomUUID().toString();
-                    user.setResetToken(resetToken);
-                    user.setResetTokenExpiry(LocalDateTime.now().plusHours(AuthConstants.RESET_TOKEN_EXPIRY_HOURS));
-                    
-                    return userRepository.save(user)
-                            .then(emailService.sendPasswordResetEmail(user.getEmail(), resetToken));
-                })
+        String normalized = email.toLowerCase();
+        return shardRouter.onEmailShard(normalized, deadlines.bound(Deadlines.DATABASE, userRepository.findByEmail(normalized))
+                        .flatMap(user -> emailThrottle.collapse(TokenType.PASSWORD_RESET, normalized,
+                                transactionalOperator.transactional(
+                                        userTokenService.issue(user.getId(), TokenType.PASSWORD_RESET,
+                                                        Duration.ofHours(AuthConstants.RESET_TOKEN_EXPIRY_HOURS))
+                                                .flatMap(resetToken -> emailService.queuePasswordResetEmail(
+                                                        user.getId(), user.getEmail(), resetToken))))))
                 .then(Mono.just(new MessageResponse(SuccessMessages.PASSWORD_RESET_EMAIL_SENT)))
                 .onErrorReturn(new MessageResponse(SuccessMessages.PASSWORD_RESET_EMAIL_FALLBACK))
                 .doOnSuccess(response -> log.info(LogMessages.PASSWORD_RESET_REQUESTED, email));
@@ -115,93 +172,113 @@ public class AuthService {
     
     @CacheEvict(value = AuthConstants.USERS_CACHE, allEntries = true)
     public Mono<MessageResponse> resetPassword(String token, String newPassword) {
-        return userRepository.findByResetToken(token)
+        String tokenHash = TokenHasher.sha256Hex(token);
+        return shardRouter.onAnyShard(deadlines.bound(Deadlines.DATABASE, userRepository.findByResetToken(tokenHash))
+                        .flatMap(user -> userTokenService.consume(tokenHash, TokenType.PASSWORD_RESET)
+                                .flatMap(consumed -> {
+                                    if (!consumed) {
+                                        return Mono.error(new AuthenticationException(ErrorMessages.INVALID_RESET_TOKEN_ERROR));
+                                    }
+                                    
+                                    user.setPassword(passwordEncoder.encode(newPassword));
+                                    user.setUpdatedAt(LocalDateTime.now());
+                                    
+                                    return shardRouter.forWrite(user.getUsername(),
+                                            deadlines.bound(Deadlines.DATABASE, userRepository.save(user)));
+                                })))
                 .switchIfEmpty(Mono.error(new AuthenticationException(ErrorMessages.INVALID_RESET_TOKEN_ERROR)))
-                .flatMap(user -> {
-                    if (user.getResetTokenExpiry().isBefore(LocalDateTime.now())) {
-                        return Mono.error(new AuthenticationException(ErrorMessages.RESET_TOKEN_EXPIRED_ERROR));
-                    }
-                    
-                    user.setPassword(passwordEncoder.encode(newPassword));
-                    user.setResetToken(null);
-                    user.setResetTokenExpiry(null);
-                    user.setUpdatedAt(LocalDateTime.now());
-                    
-                    return userRepository.save(user);
+                .flatMap(user -> refreshTokenService.revokeAll(user.getUsername()).thenReturn(user))
+                .doOnSuccess(user -> {
+                    readYourWritesTracker.recordWrite(user.getUsername());
+                    authEventLog.record(AuthEventType.PASSWORD_RESET_COMPLETED, user.getUsername());
                 })
-                .map(user -> new MessageResponse(SuccessMessages.PASSWORD_RESET_SUCCESS))
-                .doOnSuccess(response -> log.info(LogMessages.PASSWORD_RESET_COMPLETED, token));
+                .map(user -> new MessageResponse(SuccessMessages.PASSWORD_RESET_SUCCESS));
     }
     
+    // The rotated family carries the claims, so a refresh needs no user lookup
     public Mono<AuthResponse> refreshToken(String refreshToken) {
-        return tokenClient.refreshToken(refreshToken)
-                .flatMap(tokenResponse -> {
-                    String username = jwtUtil.getUsernameFromToken(refreshToken);
-                    return findByUsername(username)
-                            .map(user -> new AuthResponse(
-                                user.getUsername(),
-                                user.getEmail(),
-                                tokenResponse.getAccessToken(),
-                                tokenResponse.getRefreshToken(),
-                                tokenResponse.getTokenType(),
-                                tokenResponse.getExpiresIn()
-                            ));
-                })
-                .switchIfEmpty(Mono.error(new AuthenticationException(ErrorMessages.USER_NOT_FOUND_ERROR)));
+        return stageTimer.time("refresh", "refresh-rotate", refreshTokenService.rotate(refreshToken))
+                .flatMap(rotation -> stageTimer.time("refresh", "access-token",
+                                tokenIssuer.generateToken(rotation.username(), rotation.email(), rotation.roles()))
+                        .map(tokenResponse -> new AuthResponse(
+                            rotation.username(),
+                            rotation.email(),
+                            tokenResponse.getAccessToken(),
+                            rotation.refreshToken(),
+                            tokenResponse.getTokenType(),
+                            tokenResponse.getExpiresIn()
+                        )));
     }
     
-    public Mono<MessageResponse> logout(String token) {
+    public Mono<MessageResponse> logout(String token, String refreshToken) {
+        Mono<Void> revokeFamily = refreshToken != null ? refreshTokenService.revoke(refreshToken) : Mono.empty();
         return sessionService.blacklistToken(token, Duration.ofHours(24))
+            .then(revokeFamily)
             .then(Mono.fromCallable(() -> {
                 String username = jwtUtil.getUsernameFromToken(token);
+                authEventLog.record(AuthEventType.LOGOUT, username);
                 return sessionService.invalidateUserSession(username);
             }).flatMap(mono -> mono))
             .then(Mono.just(new MessageResponse(SuccessMessages.LOGOUT_SUCCESS)))
-            .doOnSuccess(response -> log.info("User logged out successfully"))
             .onErrorReturn(new MessageResponse(SuccessMessages.LOGOUT_SUCCESS));
     }
     
     public Mono<AvailabilityResponse> checkUsernameAvailability(String username) {
-        return userRepository.existsByUsername(username.toLowerCase())
+        String normalized = username.toLowerCase();
+        return deadlines.bound(Deadlines.DATABASE, singleFlight.execute("username-exists", normalized,
+                        () -> shardRouter.onUsernameShard(normalized,
+                                ReadRouting.readOnly(userRepository.existsByUsername(normalized), normalized))))
                 .map(exists -> new AvailabilityResponse(!exists,
                         Boolean.TRUE.equals(exists) ? StatusMessages.USERNAME_TAKEN : StatusMessages.USERNAME_AVAILABLE));
     }
     
     public Mono<AvailabilityResponse> checkEmailAvailability(String email) {
-        return userRepository.existsByEmail(email.toLowerCase())
+        String normalized = email.toLowerCase();
+        return deadlines.bound(Deadlines.DATABASE, singleFlight.execute("email-exists", normalized,
+                        () -> ReadRouting.readOnly(shardRouter.isEmailRegistered(normalized), normalized)))
                 .map(exists -> new AvailabilityResponse(!exists,
                         Boolean.TRUE.equals(exists) ? StatusMessages.EMAIL_REGISTERED : StatusMessages.EMAIL_AVAILABLE));
     }
     
     @CacheEvict(value = AuthConstants.USERS_CACHE, allEntries = true)
     public Mono<MessageResponse> verifyEmail(String token) {
-        return userRepository.findByVerificationToken(token)
+        String tokenHash = TokenHasher.sha256Hex(token);
+        return shardRouter.onAnyShard(deadlines.bound(Deadlines.DATABASE, userRepository.findByVerificationToken(tokenHash))
+                        .flatMap(user -> userTokenService.consume(tokenHash, TokenType.EMAIL_VERIFICATION)
+                                .flatMap(consumed -> {
+                                    if (!consumed) {
+                                        return Mono.error(new AuthenticationException(ErrorMessages.INVALID_VERIFICATION_TOKEN_ERROR));
+                                    }
+                                    
+                                    user.setEmailVerified(true);
+                                    user.setUpdatedAt(LocalDateTime.now());
+                                    
+                                    return shardRouter.forWrite(user.getUsername(),
+                                            deadlines.bound(Deadlines.DATABASE, userRepository.save(user)));
+                                })))
                 .switchIfEmpty(Mono.error(new AuthenticationException(ErrorMessages.INVALID_VERIFICATION_TOKEN_ERROR)))
-                .flatMap(user -> {
-                    user.setEmailVerified(true);
-                    user.setVerificationToken(null);
-                    user.setUpdatedAt(LocalDateTime.now());
-                    
-                    return userRepository.save(user);
+                .doOnSuccess(user -> {
+                    readYourWritesTracker.recordWrite(user.getUsername());
+                    log.info(LogMessages.EMAIL_VERIFIED, user.getUsername());
                 })
-                .map(user -> new MessageResponse(SuccessMessages.EMAIL_VERIFIED_SUCCESS))
-                .doOnSuccess(response -> log.info(LogMessages.EMAIL_VERIFIED, token));
+                .map(user -> new MessageResponse(SuccessMessages.EMAIL_VERIFIED_SUCCESS));
     }
     
     public Mono<MessageResponse> resendVerificationEmail(String email) {
-        return userRepository.findByEmail(email.toLowerCase())
+        String normalized = email.toLowerCase();
+        return shardRouter.onEmailShard(normalized, deadlines.bound(Deadlines.DATABASE, userRepository.findByEmail(normalized)))
                 .switchIfEmpty(Mono.error(new AuthenticationException(AuthConstants.USER_NOT_FOUND_ERROR)))
                 .flatMap(user -> {
                     if (user.isEmailVerified()) {
                         return Mono.just(new MessageResponse("Email is already verified"));
                     }
                     
-                    String verificationToken = UUID.randomUUID().toString();
-                    user.setVerificationToken(verificationToken);
-                    user.setUpdatedAt(LocalDateTime.now());
-                    
-                    return userRepository.save(user)
-                            .then(emailService.sendVerificationEmail(user.getEmail(), verificationToken));
+                    return emailThrottle.collapse(TokenType.EMAIL_VERIFICATION, normalized,
+                            shardRouter.onUsernameShard(user.getUsername(), transactionalOperator.transactional(
+                                    userTokenService.issue(user.getId(), TokenType.EMAIL_VERIFICATION,
+                                                    Duration.ofHours(AuthConstants.VERIFICATION_TOKEN_EXPIRY_HOURS))
+                                            .flatMap(verificationToken -> emailService.queueVerificationEmail(
+                                                    user.getId(), user.getEmail(), verificationToken)))));
                 })
                 .then(Mono.just(new MessageResponse(AuthConstants.VERIFICATION_EMAIL_SENT)))
                 .onErrorReturn(new MessageResponse(AuthConstants.VERIFICATION_EMAIL_SENT))
@@ -0,0 +1,331 @@
+package com.possessor.loginapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.dto.BulkImportBatchResult;
+import com.possessor.loginapi.dto.BulkImportRow;
+import com.possessor.loginapi.dto.RejectedRow;
+import com.possessor.loginapi.enums.BulkImportFormat;
+import com.possessor.loginapi.repository.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Wrapped;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Streams users from CSV or NDJSON into the users table. Rows are validated, hashed on a bounded
+ * scheduler when they carry a plaintext password, and written in large batches with COPY into a
+ * session temp table followed by one INSERT ... ON CONFLICT DO NOTHING, which also dedups against
+ * existing users. The input is consumed with backpressure so memory is bounded by the batch size.
+ */
+@Service
+@Slf4j
+public class BulkImportService {
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+    private static final int MAX_REPORTED_REJECTIONS_PER_BATCH = 1000;
+
+    private static final String STAGING_DDL = "CREATE TEMP TABLE IF NOT EXISTS import_users (" +
+            "line BIGINT, username VARCHAR(50), email VARCHAR(100), password VARCHAR(255), " +
+            "email_verified BOOLEAN, shard_bucket INTEGER)";
+    private static final String STAGING_TRUNCATE = "TRUNCATE import_users";
+    private static final String STAGING_COPY = "COPY import_users (line, username, email, password, email_verified, shard_bucket) " +
+            "FROM STDIN WITH (FORMAT csv)";
+    private static final String MERGE = "INSERT INTO users (username, email, password, email_verified, shard_bucket, created_at, updated_at) " +
+            "SELECT username, email, password, email_verified, shard_bucket, NOW(), NOW() FROM import_users ORDER BY line " +
+            "ON CONFLICT DO NOTHING RETURNING username";
+
+    private final ConnectionFactory connectionFactory;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
+    private final Scheduler hashScheduler;
+    private final int batchSize;
+    private final int hashConcurrency;
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+    private final Timer batchTimer;
+
+    public BulkImportService(ConnectionFactory connectionFactory, PasswordEncoder passwordEncoder, Validator validator,
+                             ObjectMapper objectMapper, ShardRouter shardRouter, MeterRegistry meterRegistry,
+                             @Value("${app.import.batch-size:5000}") int batchSize,
+                             @Value("${app.import.hash-threads:0}") int hashThreads) {
+        this.connectionFactory = connectionFactory;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+        this.hashConcurrency = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashScheduler = Schedulers.newParallel("import-hash", hashConcurrency);
+        this.importedRows = Counter.builder(MetricsConstants.ADMIN_IMPORT_ROWS)
+                .description(MetricsConstants.ADMIN_IMPORT_ROWS_DESC)
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder(MetricsConstants.ADMIN_IMPORT_ROWS)
+                .description(MetricsConstants.ADMIN_IMPORT_ROWS_DESC)
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder(MetricsConstants.ADMIN_IMPORT_BATCH)
+                .description(MetricsConstants.ADMIN_IMPORT_BATCH_DESC)
+                .register(meterRegistry);
+    }
+
+    public Flux<BulkImportBatchResult> importUsers(Flux<DataBuffer> body, BulkImportFormat format) {
+        if (shardRouter.isEnabled()) {
+            return Flux.error(new IllegalStateException("Bulk import is not supported while sharding is enabled"));
+        }
+
+        Flux<String> lines = StringDecoder.allMimeTypes()
+                .decode(body, ResolvableType.forClass(String.class), null, Collections.emptyMap());
+        AtomicLong totalImported = new AtomicLong();
+        AtomicLong totalRejected = new AtomicLong();
+
+        return (format == BulkImportFormat.CSV ? parseCsv(lines) : parseNdjson(lines))
+                .flatMapSequential(this::prepare, hashConcurrency)
+                .buffer(batchSize)
+                .index()
+                .concatMap(batch -> writeBatch(batch.getT1() + 1, batch.getT2(), totalImported, totalRejected));
+    }
+
+    private Flux<ParsedRow> parseCsv(Flux<String> lines) {
+        return lines.index()
+                .switchOnFirst((first, rows) -> {
+                    if (!first.hasValue()) {
+                        return Flux.empty();
+                    }
+                    List<String> header = splitCsv(first.get().getT2()).stream()
+                            .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                            .toList();
+                    return rows.skip(1)
+                            .filter(line -> StringUtils.hasText(line.getT2()))
+                            .map(line -> toRow(line.getT1() + 1, header, splitCsv(line.getT2())));
+                });
+    }
+
+    private Flux<ParsedRow> parseNdjson(Flux<String> lines) {
+        return lines.index()
+                .filter(line -> StringUtils.hasText(line.getT2()))
+                .map(line -> {
+                    try {
+                        return new ParsedRow(line.getT1() + 1, objectMapper.readValue(line.getT2(), BulkImportRow.class), null);
+                    } catch (JsonProcessingException e) {
+                        return new ParsedRow(line.getT1() + 1, null, "Malformed JSON");
+                    }
+                });
+    }
+
+    private ParsedRow toRow(long line, List<String> header, List<String> values) {
+        if (values.size() != header.size()) {
+            return new ParsedRow(line, null, "Expected " + header.size() + " columns but found " + values.size());
+        }
+        BulkImportRow row = new BulkImportRow();
+        for (int i = 0; i < header.size(); i++) {
+            String value = values.get(i);
+            switch (header.get(i)) {
+                case "username" -> row.setUsername(value);
+                case "email" -> row.setEmail(value);
+                case "password" -> row.setPassword(value);
+                case "password_hash" -> row.setPasswordHash(value);
+                case "email_verified" -> row.setEmailVerified(Boolean.parseBoolean(value.trim()));
+                default -> { }
+            }
+        }
+        return new ParsedRow(line, row, null);
+    }
+
+    // RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Mono<PreparedRow> prepare(ParsedRow parsed) {
+        if (parsed.error() != null) {
+            return Mono.just(PreparedRow.rejected(parsed.line(), null, parsed.error()));
+        }
+
+        BulkImportRow row = parsed.row();
+        Set<ConstraintViolation<BulkImportRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return Mono.just(PreparedRow.rejected(parsed.line(), row.getUsername(), violations.iterator().next().getMessage()));
+        }
+
+        String username = row.getUsername().trim().toLowerCase(Locale.ROOT);
+        String email = row.getEmail().trim().toLowerCase(Locale.ROOT);
+        if (StringUtils.hasText(row.getPasswordHash())) {
+            if (!BCRYPT_HASH.matcher(row.getPasswordHash()).matches()) {
+                return Mono.just(PreparedRow.rejected(parsed.line(), username, "Unsupported password hash format"));
+            }
+            return Mono.just(new PreparedRow(parsed.line(), username, email, row.getPasswordHash(), row.isEmailVerified(), null));
+        }
+        if (!StringUtils.hasText(row.getPassword())) {
+            return Mono.just(PreparedRow.rejected(parsed.line(), username, "Password or password_hash is required"));
+        }
+
+        return Mono.fromCallable(() -> new PreparedRow(parsed.line(), username, email,
+                        passwordEncoder.encode(row.getPassword()), row.isEmailVerified(), null))
+                .subscribeOn(hashScheduler);
+    }
+
+    private Mono<BulkImportBatchResult> writeBatch(long batchNumber, List<PreparedRow> rows,
+                                                   AtomicLong totalImported, AtomicLong totalRejected) {
+        List<RejectedRow> rejected = new ArrayList<>();
+        List<PreparedRow> accepted = new ArrayList<>();
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        for (PreparedRow row : rows) {
+            if (row.rejection() != null) {
+                rejected.add(new RejectedRow(row.line(), row.username(), row.rejection()));
+            } else if (!seenUsernames.add(row.username()) || !seenEmails.add(row.email())) {
+                rejected.add(new RejectedRow(row.line(), row.username(), "Duplicate username or email in import"));
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        long start = System.nanoTime();
+        Mono<Set<String>> inserted = accepted.isEmpty() ? Mono.just(Set.of()) : copyAndMerge(accepted);
+
+        return inserted.map(usernames -> {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            for (PreparedRow row : accepted) {
+                if (!usernames.contains(row.username())) {
+                    rejected.add(new RejectedRow(row.line(), row.username(), "Username or email already exists"));
+                }
+            }
+            int imported = usernames.size();
+            importedRows.increment(imported);
+            rejectedRows.increment(rejected.size());
+            long importedSoFar = totalImported.addAndGet(imported);
+            long rejectedSoFar = totalRejected.addAndGet(rejected.size());
+            log.info("Bulk import batch {}: {} imported, {} rejected ({} imported in total)",
+                    batchNumber, imported, rejected.size(), importedSoFar);
+
+            List<RejectedRow> reported = rejected.size() > MAX_REPORTED_REJECTIONS_PER_BATCH
+                    ? rejected.subList(0, MAX_REPORTED_REJECTIONS_PER_BATCH)
+                    : rejected;
+            return new BulkImportBatchResult(batchNumber, rows.size(), imported, rejected.size(),
+                    importedSoFar, rejectedSoFar, reported);
+        });
+    }
+
+    private Mono<Set<String>> copyAndMerge(List<PreparedRow> rows) {
+        return Mono.usingWhen(Mono.from(connectionFactory.create()),
+                connection -> execute(connection, STAGING_DDL)
+                        .then(execute(connection, STAGING_TRUNCATE))
+                        .then(unwrap(connection).copyIn(STAGING_COPY, Mono.fromSupplier(() -> encode(rows))))
+                        .thenMany(Flux.from(connection.createStatement(MERGE).execute())
+                                .flatMap(result -> result.map((row, metadata) -> row.get("username", String.class))))
+                        .collect(Collectors.toSet()),
+                Connection::close);
+    }
+
+    private static Mono<Void> execute(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(Result::getRowsUpdated)
+                .then();
+    }
+
+    private static PostgresqlConnection unwrap(Connection connection) {
+        Object candidate = connection;
+        while (!(candidate instanceof PostgresqlConnection) && candidate instanceof Wrapped<?> wrapped) {
+            candidate = wrapped.unwrap();
+        }
+        if (candidate instanceof PostgresqlConnection postgresqlConnection) {
+            return postgresqlConnection;
+        }
+        throw new IllegalStateException("Bulk import requires a PostgreSQL connection");
+    }
+
+    private static ByteBuffer encode(List<PreparedRow> rows) {
+        StringBuilder csv = new StringBuilder(rows.size() * 160);
+        for (PreparedRow row : rows) {
+            csv.append(row.line()).append(',')
+                    .append(quote(row.username())).append(',')
+                    .append(quote(row.email())).append(',')
+                    .append(quote(row.passwordHash())).append(',')
+                    .append(row.emailVerified()).append(',')
+                    .append(ShardRouter.bucketOf(row.username()))
+                    .append('\n');
+        }
+        return ByteBuffer.wrap(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashScheduler.dispose();
+    }
+
+    private record ParsedRow(long line, BulkImportRow row, String error) {
+    }
+
+    private record PreparedRow(long line, String username, String email, String passwordHash,
+                               boolean emailVerified, String rejection) {
+
+        private static PreparedRow rejected(long line, String username, String reason) {
+            return new PreparedRow(line, username, null, null, false, reason);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.possessor.loginapi.service;
+
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.entity.EmailOutbox;
+import com.possessor.loginapi.fault.FaultInjector;
+import com.possessor.loginapi.fault.FaultTarget;
+import com.possessor.loginapi.repository.EmailOutboxRepository;
+import com.possessor.loginapi.repository.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends queued emails from the outbox. Each poll claims a batch per shard and splits it across a
+ * fixed set of workers; every worker owns one SMTP connection that stays open across messages and
+ * batches until it has been idle too long or has carried its message quota. A failed message is
+ * rescheduled with exponential backoff and abandoned after the configured number of attempts.
+ */
+@Service
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final JavaMailSenderImpl mailSender;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+    private final int workers;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final long connectionIdleNanos;
+    private final int maxMessagesPerConnection;
+    private final BlockingQueue<SmtpConnection> connections;
+    private final Scheduler smtpScheduler;
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter abandoned;
+    private final Counter connectionsOpened;
+    private final Timer batchTimer;
+    private final FaultInjector faultInjector;
+
+    @Value("${app.email.outbox.retention:P7D}")
+    private Duration retention;
+
+    @Value("${app.email.outbox.purge.batch-size:1000}")
+    private int purgeBatchSize;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository, EmailService emailService,
+                                 JavaMailSenderImpl mailSender, ShardRouter shardRouter, MeterRegistry meterRegistry,
+                                 ObjectProvider<FaultInjector> faultInjector,
+                                 @Value("${app.email.outbox.batch-size:100}") int batchSize,
+                                 @Value("${app.email.outbox.workers:4}") int workers,
+                                 @Value("${app.email.outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${app.email.outbox.lease:PT2M}") Duration lease,
+                                 @Value("${app.email.outbox.initial-backoff:PT5S}") Duration initialBackoff,
+                                 @Value("${app.email.outbox.max-backoff:PT30M}") Duration maxBackoff,
+                                 @Value("${app.email.smtp.idle-timeout:PT10S}") Duration connectionIdleTimeout,
+                                 @Value("${app.email.smtp.max-messages-per-connection:100}") int maxMessagesPerConnection) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.shardRouter = shardRouter;
+        this.faultInjector = faultInjector.getIfAvailable();
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.connectionIdleNanos = connectionIdleTimeout.toNanos();
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.connections = new ArrayBlockingQueue<>(workers);
+        for (int i = 0; i < workers; i++) {
+            connections.add(new SmtpConnection());
+        }
+        this.smtpScheduler = Schedulers.newBoundedElastic(workers, Integer.MAX_VALUE, "smtp-dispatch");
+        this.sent = deliveryCounter(meterRegistry, "sent");
+        this.retried = deliveryCounter(meterRegistry, "retry");
+        this.abandoned = deliveryCounter(meterRegistry, "abandoned");
+        this.connectionsOpened = Counter.builder(MetricsConstants.EMAIL_SMTP_CONNECTIONS)
+                .description(MetricsConstants.EMAIL_SMTP_CONNECTIONS_DESC)
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder(MetricsConstants.EMAIL_OUTBOX_BATCH)
+                .description(MetricsConstants.EMAIL_OUTBOX_BATCH_DESC)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter deliveryCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(MetricsConstants.EMAIL_OUTBOX_DELIVERY)
+                .description(MetricsConstants.EMAIL_OUTBOX_DELIVERY_DESC)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval:PT1S}")
+    public Mono<Void> dispatchScheduled() {
+        return dispatch();
+    }
+
+    // Only one dispatch runs at a time, so at most one chunk per worker is ever in flight
+    public Mono<Void> dispatch() {
+        return Mono.defer(() -> {
+            if (!dispatching.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            return shardRouter.onEachShard(drainShard())
+                    .then()
+                    .doOnError(error -> log.error("Failed to dispatch queued emails", error))
+                    .onErrorResume(error -> Mono.empty())
+                    .doFinally(signal -> dispatching.set(false));
+        });
+    }
+
+    // Keeps claiming while batches come back full
+    private Mono<Integer> drainShard() {
+        return dispatchBatch()
+                .expand(claimed -> claimed >= batchSize ? dispatchBatch() : Mono.empty())
+                .reduce(0, Integer::sum);
+    }
+
+    private Mono<Integer> dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        return emailOutboxRepository.claimBatch(now, now.plus(lease), batchSize)
+                .collectList()
+                .flatMap(batch -> {
+                    if (batch.isEmpty()) {
+                        return Mono.just(0);
+                    }
+                    long start = System.nanoTime();
+                    int chunkSize = (batch.size() + workers - 1) / workers;
+                    return Flux.fromIterable(batch)
+                            .buffer(chunkSize)
+                            .flatMap(chunk -> Mono.fromCallable(() -> send(chunk)).subscribeOn(smtpScheduler), workers)
+                            .concatMapIterable(outcomes -> outcomes)
+                            .collectList()
+                            .flatMap(this::record)
+                            .doOnSuccess(ignored -> batchTimer.record(Duration.ofNanos(System.nanoTime() - start)))
+                            .thenReturn(batch.size());
+                });
+    }
+
+    private List<Outcome> send(List<EmailOutbox> chunk) {
+        SmtpConnection connection = connections.poll();
+        if (connection == null) {
+            connection = new SmtpConnection();
+        }
+        List<Outcome> outcomes = new ArrayList<>(chunk.size());
+        try {
+            for (EmailOutbox email : chunk) {
+                try {
+                    connection.send(emailService.compose(email));
+                    outcomes.add(new Outcome(email, null));
+                } catch (MessagingException | RuntimeException e) {
+                    // The transport state is unknown after a failure; the next message reconnects
+                    connection.close();
+                    outcomes.add(new Outcome(email, e));
+                }
+            }
+        } finally {
+            if (!connections.offer(connection)) {
+                connection.close();
+            }
+        }
+        return outcomes;
+    }
+
+    private Mono<Void> record(List<Outcome> outcomes) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> delivered = new ArrayList<>();
+        List<Mono<Integer>> failures = new ArrayList<>();
+        for (Outcome outcome : outcomes) {
+            EmailOutbox email = outcome.email();
+            if (outcome.error() == null) {
+                delivered.add(email.getId());
+                continue;
+            }
+            int attempts = email.getAttempts() + 1;
+            String error = describe(outcome.error());
+            if (attempts >= maxAttempts) {
+                abandoned.increment();
+                log.error("Giving up on {} email to {} after {} attempts: {}",
+                        email.getEmailType(), email.getRecipient(), attempts, error);
+                failures.add(emailOutboxRepository.markFailed(email.getId(), attempts, error));
+            } else {
+                retried.increment();
+                log.warn("Failed to send {} email to {} (attempt {}): {}",
+                        email.getEmailType(), email.getRecipient(), attempts, error);
+                failures.add(emailOutboxRepository.markRetry(email.getId(), attempts, now.plus(backoff(attempts)), error));
+            }
+        }
+        sent.increment(delivered.size());
+        Mono<Integer> markSent = delivered.isEmpty() ? Mono.empty() : emailOutboxRepository.markSent(delivered, now);
+        return markSent.thenMany(Flux.concat(failures)).then();
+    }
+
+    private Duration backoff(int attempts) {
+        long millis = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(millis, maxBackoff.toMillis()));
+    }
+
+    private static String describe(Exception error) {
+        String description = error.getClass().getSimpleName() + ": " + error.getMessage();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.purge.interval:PT1H}",
+               initialDelayString = "${app.email.outbox.purge.initial-delay:PT5M}")
+    public Mono<Void> purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        Mono<Long> purgeShard = emailOutboxRepository.deleteFinishedBatch(cutoff, purgeBatchSize)
+                .expand(deleted -> deleted >= purgeBatchSize
+                        ? emailOutboxRepository.deleteFinishedBatch(cutoff, purgeBatchSize)
+                        : Mono.empty())
+                .reduce(0L, (total, deleted) -> total + deleted);
+
+        return shardRouter.onEachShard(purgeShard)
+                .reduce(0L, Long::sum)
+                .doOnNext(total -> {
+                    if (total > 0) {
+                        log.info("Purged {} finished outbox emails", total);
+                    }
+                })
+                .doOnError(error -> log.error("Failed to purge finished outbox emails", error))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        smtpScheduler.dispose();
+        SmtpConnection connection;
+        while ((connection = connections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private record Outcome(EmailOutbox email, Exception error) {
+    }
+
+    // Confined to one worker at a time by the connection queue
+    private final class SmtpConnection {
+
+        private Transport transport;
+        private int messagesSent;
+        private long lastUsedAt;
+
+        void send(MimeMessage message) throws MessagingException {
+            if (transport != null && (messagesSent >= maxMessagesPerConnection
+                    || System.nanoTime() - lastUsedAt > connectionIdleNanos)) {
+                close();
+            }
+            if (transport == null) {
+                connect();
+            }
+            if (faultInjector != null) {
+                faultInjector.applyBlocking(FaultTarget.SMTP);
+            }
+            transport.sendMessage(message, message.getAllRecipients());
+            messagesSent++;
+            lastUsedAt = System.nanoTime();
+        }
+
+        private void connect() throws MessagingException {
+            String username = StringUtils.hasLength(mailSender.getUsername()) ? mailSender.getUsername() : null;
+            String password = username != null ? mailSender.getPassword() : null;
+            Transport opened = mailSender.getSession().getTransport(mailSender.getProtocol());
+            opened.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+            connectionsOpened.increment();
+            transport = opened;
+            messagesSent = 0;
+        }
+
+        void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close SMTP connection cleanly", e);
+            }
+            transport = null;
+        }
+    }
+}
@@ -1,95 +1,89 @@
 package com.possessor.loginapi.service;
 
 import com.possessor.loginapi.constants.ErrorMessages;
+import com.possessor.loginapi.entity.EmailOutbox;
+import com.possessor.loginapi.enums.EmailOutboxStatus;
+import com.possessor.loginapi.enums.TokenType;
 import com.possessor.loginapi.exception.EmailServiceException;
+import com.possessor.loginapi.repository.EmailOutboxRepository;
+import com.possessor.loginapi.security.PayloadCipher;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
-import reactor.util.retry.Retry;
 
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 
+/**
+ * Queues token emails in the outbox and renders them for {@link EmailOutboxDispatcher}. Callers
+ * enqueue inside the transaction that issues the token, so a token is never stored without its
+ * email and the request returns without waiting on SMTP.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
     
-    private final JavaMailSender mailSender;
+    private final JavaMailSenderImpl mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final PayloadCipher payloadCipher;
     
-    @Value("${spring.mail.username}")
+    @Value("${app.email.from:no-reply@localhost}")
     private String fromEmail;
     
     @Value("${app.frontend.url:http://localhost:3000}")
     private String frontendUrl;
     
-    @Value("${app.email.retry.attempts:3}")
-    private int retryAttempts;
+    public Mono<Void> queuePasswordResetEmail(Long userId, String toEmail, String resetToken) {
+        return queue(userId, toEmail, TokenType.PASSWORD_RESET, resetToken);
+    }
     
-    @Value("${app.email.timeout.seconds:30}")
-    private int timeoutSeconds;
+    public Mono<Void> queueVerificationEmail(Long userId, String toEmail, String verificationToken) {
+        return queue(userId, toEmail, TokenType.EMAIL_VERIFICATION, verificationToken);
+    }
     
-    public Mono<Void> sendPasswordResetEmail(String toEmail, String resetToken) {
-        if (toEmail == null || toEmail.trim().isEmpty() || resetToken == null || resetToken.trim().isEmpty()) {
+    private Mono<Void> queue(Long userId, String toEmail, TokenType emailType, String token) {
+        if (toEmail == null || toEmail.trim().isEmpty() || token == null || token.trim().isEmpty()) {
             return Mono.error(new EmailServiceException("Invalid email or token parameters"));
         }
         
-        return Mono.fromRunnable(() -> {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(toEmail);
-                message.setSubject("Password Reset Request");
-                message.setText(buildPasswordResetEmailBody(resetToken));
-                
-                mailSender.send(message);
-                log.info("Password reset email sent to: {}", toEmail);
-            } catch (MailException e) {
-                log.error("Mail service error sending password reset email to: {}", toEmail, e);
-                throw new EmailServiceException(ErrorMessages.EMAIL_SERVICE_UNAVAILABLE_ERROR, e);
-            } catch (Exception e) {
-                log.error("Unexpected error sending password reset email to: {}", toEmail, e);
-                throw new EmailServiceException(ErrorMessages.EMAIL_SEND_FAILED_ERROR, e);
-            }
-        })
-        .subscribeOn(Schedulers.boundedElastic())
-        .timeout(Duration.ofSeconds(timeoutSeconds))
-        .retryWhen(Retry.backoff(retryAttempts, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(5)))
-        .then();
+        // The token is the only way to rebuild the link (just its hash is stored), so it is kept
+        // encrypted rather than dropped
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox email = new EmailOutbox(null, userId, toEmail, emailType, payloadCipher.encrypt(token),
+                EmailOutboxStatus.PENDING, 0, now, null, null, now, null);
+        return emailOutboxRepository.save(email)
+                .doOnSuccess(saved -> log.debug("Queued {} email to: {}", emailType, toEmail))
+                .then();
     }
     
-    public Mono<Void> sendVerificationEmail(String toEmail, String verificationToken) {
-        if (toEmail == null || toEmail.trim().isEmpty() || verificationToken == null || verificationToken.trim().isEmpty()) {
-            return Mono.error(new EmailServiceException("Invalid email or token parameters"));
-        }
-        
-        return Mono.fromRunnable(() -> {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(toEmail);
-                message.setSubject("Email Verification");
-                message.setText(buildVerificationEmailBody(verificationToken));
-                
-                mailSender.send(message);
-                log.info("Verification email sent to: {}", toEmail);
-            } catch (MailException e) {
-                log.error("Mail service error sending verification email to: {}", toEmail, e);
-                throw new EmailServiceException(ErrorMessages.EMAIL_SERVICE_UNAVAILABLE_ERROR, e);
-            } catch (Exception e) {
-                log.error("Unexpected error sending verification email to: {}", toEmail, e);
-                throw new EmailServiceException(ErrorMessages.EMAIL_SEND_FAILED_ERROR, e);
+    // Runs on a dispatcher thread; the message is bound to the sender's session so it can be
+    // handed straight to an open transport
+    public MimeMessage compose(EmailOutbox email) {
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+            helper.setFrom(fromEmail);
+            helper.setTo(email.getRecipient());
+            String token = payloadCipher.decrypt(email.getPayload());
+            if (email.getEmailType() == TokenType.PASSWORD_RESET) {
+                helper.setSubject("Password Reset Request");
+                helper.setText(buildPasswordResetEmailBody(token));
+            } else {
+                helper.setSubject("Email Verification");
+                helper.setText(buildVerificationEmailBody(token));
             }
-        })
-        .subscribeOn(Schedulers.boundedElastic())
-        .timeout(Duration.ofSeconds(timeoutSeconds))
-        .retryWhen(Retry.backoff(retryAttempts, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(5)))
-        .then();
+            message.saveChanges();
+            return message;
+        } catch (MessagingException e) {
+            throw new EmailServiceException(ErrorMessages.EMAIL_SEND_FAILED_ERROR, e);
+        }
     }
     
     private String buildPasswordResetEmailBody(String resetToken) {
@@ -123,4 +117,4 @@ public class EmailService {
             Login API Team
             """, frontendUrl, verificationToken);
     }
-}
\ No newline at end of file
+}
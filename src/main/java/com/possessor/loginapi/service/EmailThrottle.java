@@ -0,0 +1,91 @@
+package com.possessor.loginapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.enums.TokenType;
+import com.possessor.loginapi.security.TokenHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Collapses repeated token emails to the same recipient. The first request in a window issues the
+ * token and queues the email; later ones within the window complete empty and leave that pending
+ * email, whose token is still the live one, to do the job. A local cache answers repeats on this
+ * node without a round trip, and a Redis key with the same TTL covers the other nodes.
+ */
+@Service
+@Slf4j
+public class EmailThrottle {
+
+    private static final String KEY_PREFIX = "email:throttle:";
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final Duration window;
+    private final Cache<String, Boolean> recentSends;
+    private final Counter collapsedLocally;
+    private final Counter collapsedRemotely;
+
+    public EmailThrottle(ReactiveRedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry,
+                         @Value("${app.email.throttle.window:PT1M}") Duration window,
+                         @Value("${app.email.throttle.max-recipients:100000}") long maxRecipients) {
+        this.redisTemplate = redisTemplate;
+        this.window = window;
+        this.recentSends = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxRecipients)
+                .build();
+        this.collapsedLocally = collapsedCounter(meterRegistry, "local");
+        this.collapsedRemotely = collapsedCounter(meterRegistry, "redis");
+    }
+
+    private static Counter collapsedCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder(MetricsConstants.EMAIL_THROTTLE_COLLAPSED)
+                .description(MetricsConstants.EMAIL_THROTTLE_COLLAPSED_DESC)
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    // Runs send only if no email of this type went to the recipient within the window; a failed
+    // send frees the window again so the user can retry straight away
+    public <T> Mono<T> collapse(TokenType emailType, String recipient, Mono<T> send) {
+        String key = emailType.name() + ":" + recipient;
+        return Mono.defer(() -> {
+            if (recentSends.asMap().putIfAbsent(key, Boolean.TRUE) != null) {
+                collapsedLocally.increment();
+                return Mono.empty();
+            }
+            return redisTemplate.opsForValue()
+                    .setIfAbsent(redisKey(key), "1", window)
+                    .doOnError(error -> log.warn("Redis email throttle unavailable, allowing {} email", emailType, error))
+                    .onErrorReturn(true)
+                    .flatMap(acquired -> {
+                        if (!Boolean.TRUE.equals(acquired)) {
+                            collapsedRemotely.increment();
+                            return Mono.<T>empty();
+                        }
+                        return send.doOnError(error -> release(key));
+                    });
+        });
+    }
+
+    private void release(String key) {
+        recentSends.invalidate(key);
+        redisTemplate.delete(redisKey(key))
+                .doOnError(error -> log.warn("Failed to release email throttle window", error))
+                .onErrorResume(error -> Mono.empty())
+                .subscribe();
+    }
+
+    // Recipients are hashed so Redis never holds the addresses
+    private static String redisKey(String key) {
+        return KEY_PREFIX + TokenHasher.sha256Hex(key);
+    }
+}
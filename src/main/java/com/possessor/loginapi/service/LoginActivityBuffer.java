@@ -0,0 +1,242 @@
+package com.possessor.loginapi.service;
+
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.repository.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for last-login timestamps and failed-attempt counters. Events for the same
+ * user coalesce into one pending entry, and pending entries are written with one array-bound
+ * UPDATE per batch when the flush interval elapses or the buffer reaches the batch size. The buffer
+ * is drained after the web server's graceful shutdown phase, so at most one flush interval of
+ * activity can be lost, and only on a crash.
+ */
+@Service
+@Slf4j
+public class LoginActivityBuffer implements SmartLifecycle {
+
+    private static final String FLUSH_SQL = "UPDATE users u SET " +
+            "last_login_at = COALESCE(v.last_login_at, u.last_login_at), " +
+            "failed_login_count = CASE WHEN v.reset_failures THEN 0 ELSE u.failed_login_count END + v.failures, " +
+            "last_failed_login_at = COALESCE(v.last_failed_login_at, u.last_failed_login_at) " +
+            "FROM unnest(CAST(:usernames AS varchar[]), CAST(:lastLogins AS timestamp[]), CAST(:resets AS boolean[]), " +
+            "CAST(:failures AS int[]), CAST(:lastFailures AS timestamp[])) " +
+            "AS v(username, last_login_at, reset_failures, failures, last_failed_login_at) " +
+            "WHERE u.username = v.username";
+
+    private final DatabaseClient databaseClient;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+    private final int maxPending;
+    private final Duration shutdownTimeout;
+    private final ConcurrentHashMap<String, Activity> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final Timer flushTimer;
+    private final Counter flushedRows;
+    private final Counter droppedEvents;
+    private volatile Mono<Void> inFlight = Mono.empty();
+    private volatile boolean running;
+
+    public LoginActivityBuffer(DatabaseClient databaseClient, ShardRouter shardRouter, MeterRegistry meterRegistry,
+                               @Value("${app.login-activity.batch-size:500}") int batchSize,
+                               @Value("${app.login-activity.max-pending:100000}") int maxPending,
+                               @Value("${app.login-activity.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.databaseClient = databaseClient;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.shutdownTimeout = shutdownTimeout;
+        Gauge.builder(MetricsConstants.LOGIN_ACTIVITY_BUFFER_SIZE, pending, Map::size)
+                .description(MetricsConstants.LOGIN_ACTIVITY_BUFFER_SIZE_DESC)
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder(MetricsConstants.LOGIN_ACTIVITY_FLUSH)
+                .description(MetricsConstants.LOGIN_ACTIVITY_FLUSH_DESC)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushedRows = Counter.builder(MetricsConstants.LOGIN_ACTIVITY_FLUSHED)
+                .register(meterRegistry);
+        this.droppedEvents = Counter.builder(MetricsConstants.LOGIN_ACTIVITY_DROPPED)
+                .register(meterRegistry);
+    }
+
+    public void recordSuccess(String username) {
+        record(username, new Activity(LocalDateTime.now(), true, 0, null));
+    }
+
+    public void recordFailure(String username) {
+        record(username, new Activity(null, false, 1, LocalDateTime.now()));
+    }
+
+    private void record(String username, Activity activity) {
+        if (pending.size() >= maxPending && !pending.containsKey(username)) {
+            droppedEvents.increment();
+            return;
+        }
+        pending.merge(username, activity, Activity::then);
+        if (pending.size() >= batchSize) {
+            flush().subscribe();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.login-activity.flush-interval:PT1S}")
+    public Mono<Void> flushScheduled() {
+        return flush();
+    }
+
+    // Only one flush runs at a time; it keeps draining batches until the buffer is empty
+    public Mono<Void> flush() {
+        return Mono.defer(() -> {
+            if (pending.isEmpty() || !flushing.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            // Cached so shutdown can wait on the flush that is already running
+            Mono<Void> run = Mono.defer(this::flushBatch)
+                    .repeat(() -> !pending.isEmpty())
+                    .then()
+                    .doOnError(error -> log.error("Failed to flush login activity", error))
+                    .onErrorResume(error -> Mono.empty())
+                    .doFinally(signal -> flushing.set(false))
+                    .cache();
+            inFlight = run;
+            return run;
+        });
+    }
+
+    private Mono<Void> flushBatch() {
+        Map<String, Activity> batch = drain();
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+        long start = System.nanoTime();
+        Mono<Void> writes = shardRouter.isEnabled()
+                ? Flux.fromIterable(groupByShard(batch).entrySet())
+                        .concatMap(shard -> shardRouter.onShard(shard.getKey(), write(shard.getValue())))
+                        .then()
+                : write(batch);
+        return writes
+                .doOnSuccess(ignored -> {
+                    flushTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                    flushedRows.increment(batch.size());
+                })
+                .doOnError(error -> batch.forEach((username, activity) ->
+                        pending.merge(username, activity, (newer, failed) -> failed.then(newer))));
+    }
+
+    // remove() hands each entry to exactly one flush; events arriving meanwhile start a new entry
+    private Map<String, Activity> drain() {
+        Map<String, Activity> batch = new HashMap<>();
+        for (String username : pending.keySet()) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            Activity activity = pending.remove(username);
+            if (activity != null) {
+                batch.put(username, activity);
+            }
+        }
+        return batch;
+    }
+
+    private Map<Integer, Map<String, Activity>> groupByShard(Map<String, Activity> batch) {
+        Map<Integer, Map<String, Activity>> shards = new HashMap<>();
+        batch.forEach((username, activity) ->
+                shards.computeIfAbsent(shardRouter.shardOf(username), shard -> new HashMap<>()).put(username, activity));
+        return shards;
+    }
+
+    private Mono<Void> write(Map<String, Activity> batch) {
+        int size = batch.size();
+        String[] usernames = new String[size];
+        LocalDateTime[] lastLogins = new LocalDateTime[size];
+        Boolean[] resets = new Boolean[size];
+        Integer[] failures = new Integer[size];
+        LocalDateTime[] lastFailures = new LocalDateTime[size];
+        int i = 0;
+        for (Map.Entry<String, Activity> entry : batch.entrySet()) {
+            Activity activity = entry.getValue();
+            usernames[i] = entry.getKey();
+            lastLogins[i] = activity.lastLogin();
+            resets[i] = activity.resetFailures();
+            failures[i] = activity.failures();
+            lastFailures[i] = activity.lastFailure();
+            i++;
+        }
+        return databaseClient.sql(FLUSH_SQL)
+                .bind("usernames", usernames)
+                .bind("lastLogins", lastLogins)
+                .bind("resets", resets)
+                .bind("failures", failures)
+                .bind("lastFailures", lastFailures)
+                .then();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (pending.isEmpty() && !flushing.get()) {
+            return;
+        }
+        log.info("Flushing {} pending login activity entries before shutdown", pending.size());
+        try {
+            // A flush already running holds entries that are no longer pending: wait for it to
+            // finish, then drain whatever is left
+            Mono.defer(() -> flushing.get() ? inFlight : flush())
+                    .repeat(() -> flushing.get() || !pending.isEmpty())
+                    .then()
+                    .block(shutdownTimeout);
+        } catch (RuntimeException e) {
+            log.warn("Login activity flush did not complete within {}", shutdownTimeout, e);
+        }
+        if (!pending.isEmpty()) {
+            log.warn("Dropped {} login activity entries at shutdown", pending.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server has drained in-flight requests and before the pools are disposed
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+    }
+
+    private record Activity(LocalDateTime lastLogin, boolean resetFailures, int failures, LocalDateTime lastFailure) {
+
+        // Folds a later event into this one; a successful login clears the failures before it
+        private Activity then(Activity later) {
+            if (later.resetFailures()) {
+                return new Activity(later.lastLogin(), true, later.failures(),
+                        later.lastFailure() != null ? later.lastFailure() : lastFailure);
+            }
+            return new Activity(lastLogin, resetFailures, failures + later.failures(),
+                    later.lastFailure() != null ? later.lastFailure() : lastFailure);
+        }
+    }
+}
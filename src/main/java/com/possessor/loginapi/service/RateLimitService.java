@@ -1,5 +1,6 @@
 package com.possessor.loginapi.service;
 
+import com.possessor.loginapi.support.Deadlines;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -15,12 +16,12 @@ import java.time.Duration;
 public class RateLimitService {
 
     private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final Deadlines deadlines;
     
     public Mono<Boolean> isAllowed(String key, int maxRequests, Duration window) {
         String redisKey = "rate_limit:" + key;
         
-        return redisTemplate.opsForValue()
-            .get(redisKey)
+        return deadlines.bound(Deadlines.REDIS, redisTemplate.opsForValue().get(redisKey))
             .cast(String.class)
             .map(Integer::parseInt)
             .defaultIfEmpty(0)
@@ -29,6 +30,7 @@ public class RateLimitService {
                     return Mono.just(false);
                 }
                 
+                // Not bounded: cancelling between INCR and EXPIRE would leave a counter that never expires
                 return redisTemplate.opsForValue()
                     .increment(redisKey)
                     .flatMap(newCount -> {
@@ -46,8 +48,7 @@ public class RateLimitService {
     public Mono<Long> getRemainingRequests(String key, int maxRequests) {
         String redisKey = "rate_limit:" + key;
         
-        return redisTemplate.opsForValue()
-            .get(redisKey)
+        return deadlines.bound(Deadlines.REDIS, redisTemplate.opsForValue().get(redisKey))
             .cast(String.class)
             .map(Integer::parseInt)
             .defaultIfEmpty(0)
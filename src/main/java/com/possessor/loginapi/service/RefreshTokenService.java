@@ -0,0 +1,201 @@
+package com.possessor.loginapi.service;
+
+import com.possessor.loginapi.constants.ErrorMessages;
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.enums.AuthEventType;
+import com.possessor.loginapi.exception.AuthenticationException;
+import com.possessor.loginapi.security.TokenHasher;
+import com.possessor.loginapi.support.Deadlines;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque, rotating refresh tokens kept in Redis. A token is {@code <familyId>.<secret>}; the family
+ * hash stores the digest of the only secret currently valid, the digests of every secret already
+ * rotated out and the claims needed to mint the next access token. Rotation is one Lua call. A
+ * rotated-out secret presented again means the token leaked, so the whole family is deleted.
+ * Revoking a family deletes that one key. Each user's families are also listed in a set, so all of
+ * them can be revoked when the account is deleted, renamed or its password changes; otherwise the
+ * frozen claims would keep minting access tokens for an account that no longer matches them.
+ *
+ * <p>Assumes a single-node (or replicated, non-cluster) Redis: the CREATE and REVOKE_ALL scripts
+ * reach family keys built from the set's members rather than declared in KEYS, which Redis Cluster
+ * and script key validation reject. Moving to a cluster means hash-tagging these keys per user.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final String FAMILY_KEY_PREFIX = "refresh:family:";
+    private static final String USER_KEY_PREFIX = "refresh:user:";
+    private static final String ROTATED = "ok";
+    private static final String REUSED = "reused";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    // KEYS: family, user's family set. ARGV: secret digest, username, email, roles, absolute deadline
+    // (epoch ms), idle ttl (ms), family id, family key prefix, max lifetime (ms). Families that have
+    // already expired are pruned from the set on the way, through undeclared keys; see the class doc
+    private static final RedisScript<List> CREATE = RedisScript.of("""
+            redis.call('HSET', KEYS[1], 'current', ARGV[1], 'username', ARGV[2], 'email', ARGV[3],
+                'roles', ARGV[4], 'deadline', ARGV[5])
+            redis.call('PEXPIRE', KEYS[1], ARGV[6])
+            for _, family in ipairs(redis.call('SMEMBERS', KEYS[2])) do
+                if redis.call('EXISTS', ARGV[8] .. family) == 0 then
+                    redis.call('SREM', KEYS[2], family)
+                end
+            end
+            redis.call('SADD', KEYS[2], ARGV[7])
+            redis.call('PEXPIRE', KEYS[2], ARGV[9])
+            return {'ok'}
+            """, List.class);
+
+    // ARGV: presented digest, next digest, idle ttl (ms), now (epoch ms)
+    private static final RedisScript<List> ROTATE = RedisScript.of("""
+            local family = redis.call('HMGET', KEYS[1], 'current', 'username', 'email', 'roles', 'deadline')
+            if not family[1] then
+                return {'invalid'}
+            end
+            if family[1] == ARGV[1] then
+                if tonumber(family[5]) < tonumber(ARGV[4]) then
+                    redis.call('DEL', KEYS[1])
+                    return {'invalid'}
+                end
+                redis.call('HSET', KEYS[1], 'current', ARGV[2], 'used:' .. ARGV[1], '1')
+                redis.call('PEXPIRE', KEYS[1], ARGV[3])
+                return {'ok', family[2], family[3], family[4]}
+            end
+            if redis.call('HEXISTS', KEYS[1], 'used:' .. ARGV[1]) == 1 then
+                redis.call('DEL', KEYS[1])
+                return {'reused'}
+            end
+            return {'invalid'}
+            """, List.class);
+
+    // ARGV: presented digest; only a holder of a current or rotated-out secret can revoke
+    private static final RedisScript<Long> REVOKE = RedisScript.of("""
+            local current = redis.call('HGET', KEYS[1], 'current')
+            if current == ARGV[1] or redis.call('HEXISTS', KEYS[1], 'used:' .. ARGV[1]) == 1 then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS: user's family set. ARGV: family key prefix. Family keys are undeclared; see the class doc
+    private static final RedisScript<Long> REVOKE_ALL = RedisScript.of("""
+            local revoked = 0
+            for _, family in ipairs(redis.call('SMEMBERS', KEYS[1])) do
+                revoked = revoked + redis.call('DEL', ARGV[1] .. family)
+            end
+            redis.call('DEL', KEYS[1])
+            return revoked
+            """, Long.class);
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration idleTtl;
+    private final Duration maxLifetime;
+    private final Counter reuseDetected;
+    private final AuthEventLog authEventLog;
+    private final Deadlines deadlines;
+
+    public RefreshTokenService(ReactiveRedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry,
+                               AuthEventLog authEventLog, Deadlines deadlines,
+                               @Value("${jwt.refresh-expiration:604800000}") long refreshExpirationMillis,
+                               @Value("${token.refresh.max-lifetime:30d}") Duration maxLifetime) {
+        this.redisTemplate = redisTemplate;
+        this.idleTtl = Duration.ofMillis(refreshExpirationMillis);
+        this.maxLifetime = maxLifetime;
+        this.authEventLog = authEventLog;
+        this.deadlines = deadlines;
+        this.reuseDetected = Counter.builder(MetricsConstants.AUTH_REFRESH_REUSE)
+                .description(MetricsConstants.AUTH_REFRESH_REUSE_DESC)
+                .register(meterRegistry);
+    }
+
+    // Starts a new family at login and returns its first token
+    public Mono<String> issue(String username, String email, int roles) {
+        String familyId = randomToken(16);
+        String secret = randomToken(32);
+        long deadline = System.currentTimeMillis() + maxLifetime.toMillis();
+        return deadlines.bound(Deadlines.REDIS, redisTemplate.execute(CREATE,
+                        List.of(FAMILY_KEY_PREFIX + familyId, USER_KEY_PREFIX + username),
+                        List.of(TokenHasher.sha256Hex(secret), username, email, Integer.toString(roles),
+                                Long.toString(deadline), Long.toString(idleTtl.toMillis()), familyId,
+                                FAMILY_KEY_PREFIX, Long.toString(maxLifetime.toMillis())))
+                        .then())
+                .then(Mono.just(familyId + "." + secret));
+    }
+
+    public Mono<Rotation> rotate(String refreshToken) {
+        int separator = refreshToken.indexOf('.');
+        if (separator <= 0 || separator == refreshToken.length() - 1) {
+            return Mono.error(new AuthenticationException(ErrorMessages.INVALID_REFRESH_TOKEN_ERROR));
+        }
+        String familyId = refreshToken.substring(0, separator);
+        String presented = refreshToken.substring(separator + 1);
+        String next = randomToken(32);
+
+        // Refused once the deadline has passed but never cancelled in flight: a rotation whose new
+        // token is lost would make the client's next refresh look like reuse and revoke the family
+        return deadlines.guard(Deadlines.REDIS, redisTemplate.execute(ROTATE, List.of(FAMILY_KEY_PREFIX + familyId),
+                        List.of(TokenHasher.sha256Hex(presented), TokenHasher.sha256Hex(next),
+                                Long.toString(idleTtl.toMillis()), Long.toString(System.currentTimeMillis())))
+                        .next())
+                .flatMap(result -> {
+                    String status = (String) result.get(0);
+                    if (ROTATED.equals(status)) {
+                        return Mono.just(new Rotation((String) result.get(1), (String) result.get(2),
+                                Integer.parseInt((String) result.get(3)), familyId + "." + next));
+                    }
+                    if (REUSED.equals(status)) {
+                        reuseDetected.increment();
+                        log.warn("Refresh token reuse detected, revoked token family {}", familyId);
+                        authEventLog.record(AuthEventType.REFRESH_TOKEN_REUSE, null, null, "family " + familyId);
+                    }
+                    return Mono.error(new AuthenticationException(ErrorMessages.INVALID_REFRESH_TOKEN_ERROR));
+                });
+    }
+
+    public Mono<Void> revoke(String refreshToken) {
+        int separator = refreshToken.indexOf('.');
+        if (separator <= 0) {
+            return Mono.empty();
+        }
+        return deadlines.bound(Deadlines.REDIS, redisTemplate.execute(REVOKE,
+                        List.of(FAMILY_KEY_PREFIX + refreshToken.substring(0, separator)),
+                        List.of(TokenHasher.sha256Hex(refreshToken.substring(separator + 1))))
+                .then());
+    }
+
+    // Not bounded by the request deadline: a cancelled revocation would leave the old claims usable
+    public Mono<Void> revokeAll(String username) {
+        return redisTemplate.execute(REVOKE_ALL, List.of(USER_KEY_PREFIX + username), List.of(FAMILY_KEY_PREFIX))
+                .next()
+                .doOnNext(revoked -> {
+                    if (revoked > 0) {
+                        log.info("Revoked {} refresh token families for {}", revoked, username);
+                    }
+                })
+                .then();
+    }
+
+    private String randomToken(int bytes) {
+        byte[] buffer = new byte[bytes];
+        random.nextBytes(buffer);
+        return ENCODER.encodeToString(buffer);
+    }
+
+    public record Rotation(String username, String email, int roles, String refreshToken) {
+    }
+}
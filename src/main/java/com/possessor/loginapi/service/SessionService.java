@@ -1,5 +1,7 @@
 package com.possessor.loginapi.service;
 
+import com.possessor.loginapi.support.Deadlines;
+import com.possessor.loginapi.support.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
@@ -14,9 +16,12 @@ import java.time.Duration;
 public class SessionService {
     
     private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final SingleFlight singleFlight;
+    private final Deadlines deadlines;
     
     public Mono<Void> blacklistToken(String token, Duration expiration) {
         String key = "blacklist:" + token;
+        // Not bounded: logout reports success regardless, so a cancelled write would leave the token usable
         return redisTemplate.opsForValue()
             .set(key, "true", expiration)
             .doOnSuccess(result -> log.info("Token blacklisted: {}", token.substring(0, 10) + "..."))
@@ -25,27 +30,26 @@ public class SessionService {
     
     public Mono<Boolean> isTokenBlacklisted(String token) {
         String key = "blacklist:" + token;
-        return redisTemplate.hasKey(key)
+        // Bounded outside the flight so one caller's deadline never cancels the shared lookup
+        return deadlines.bound(Deadlines.REDIS, singleFlight.execute("token-blacklisted", key, () -> redisTemplate.hasKey(key)))
             .onErrorReturn(false);
     }
     
     public Mono<Void> storeUserSession(String userId, String sessionData, Duration expiration) {
         String key = "session:" + userId;
-        return redisTemplate.opsForValue()
-            .set(key, sessionData, expiration)
+        return deadlines.bound(Deadlines.REDIS, redisTemplate.opsForValue().set(key, sessionData, expiration))
             .then();
     }
     
     public Mono<String> getUserSession(String userId) {
         String key = "session:" + userId;
-        return redisTemplate.opsForValue()
-            .get(key)
+        return deadlines.bound(Deadlines.REDIS, redisTemplate.opsForValue().get(key))
             .onErrorReturn("");
     }
     
     public Mono<Void> invalidateUserSession(String userId) {
         String key = "session:" + userId;
-        return redisTemplate.delete(key)
+        return deadlines.bound(Deadlines.REDIS, redisTemplate.delete(key))
             .then();
     }
 }
\ No newline at end of file
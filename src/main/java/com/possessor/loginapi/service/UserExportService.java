@@ -0,0 +1,141 @@
+package com.possessor.loginapi.service;
+
+import com.possessor.loginapi.dto.UserExportFilter;
+import com.possessor.loginapi.dto.UserExportRow;
+import com.possessor.loginapi.repository.ReadRouting;
+import com.possessor.loginapi.repository.ShardRouter;
+import com.possessor.loginapi.security.RoleBits;
+import io.r2dbc.spi.Readable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Streams users for admin listing and export with keyset pagination on {@code id}. Each page is a
+ * bounded query that starts after the last id of the previous page, and the next page is only
+ * fetched once downstream has demanded the current one, so memory stays at one page regardless of
+ * the result size. With sharding enabled the shards are streamed one after another.
+ */
+@Service
+@Slf4j
+public class UserExportService {
+
+    public static final String CSV_HEADER = "id,username,email,email_verified,roles,created_at,updated_at\n";
+
+    private static final String READ_SESSION = "admin-export";
+    private static final String COLUMNS = "id, username, email, email_verified, roles, created_at, updated_at";
+
+    private final DatabaseClient databaseClient;
+    private final ShardRouter shardRouter;
+    private final int pageSize;
+
+    public UserExportService(DatabaseClient databaseClient, ShardRouter shardRouter,
+                             @Value("${app.export.page-size:1000}") int pageSize) {
+        this.databaseClient = databaseClient;
+        this.shardRouter = shardRouter;
+        this.pageSize = pageSize;
+    }
+
+    public Flux<UserExportRow> streamUsers(UserExportFilter filter) {
+        long after = filter.getAfterId() != null ? filter.getAfterId() : 0L;
+        Flux<UserExportRow> users = shardRouter.isEnabled()
+                ? Flux.range(0, shardRouter.shardCount()).concatMap(shard -> shardRouter.onShard(shard, pages(filter, after)))
+                : pages(filter, after);
+        if (filter.getLimit() != null) {
+            users = users.take(filter.getLimit(), true);
+        }
+        return ReadRouting.readOnly(users, READ_SESSION);
+    }
+
+    public Flux<String> streamCsv(UserExportFilter filter) {
+        return Flux.concat(Mono.just(CSV_HEADER), streamUsers(filter).map(UserExportService::toCsv));
+    }
+
+    // A prefetch of one page keeps expand from fetching pages ahead of demand
+    private Flux<UserExportRow> pages(UserExportFilter filter, long after) {
+        return fetchPage(filter, after)
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty()
+                        : fetchPage(filter, page.get(page.size() - 1).getId()))
+                .concatMapIterable(page -> page, 1);
+    }
+
+    private Mono<List<UserExportRow>> fetchPage(UserExportFilter filter, long after) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM users WHERE id > :after");
+        if (filter.getRole() != null) {
+            sql.append(" AND (roles & :role) <> 0");
+        }
+        if (filter.getEmailVerified() != null) {
+            sql.append(" AND email_verified = :emailVerified");
+        }
+        if (filter.getCreatedFrom() != null) {
+            sql.append(" AND created_at >= :createdFrom");
+        }
+        if (filter.getCreatedTo() != null) {
+            sql.append(" AND created_at < :createdTo");
+        }
+        sql.append(" ORDER BY id LIMIT :pageSize");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("after", after)
+                .bind("pageSize", pageSize);
+        if (filter.getRole() != null) {
+            spec = spec.bind("role", RoleBits.of(filter.getRole()));
+        }
+        if (filter.getEmailVerified() != null) {
+            spec = spec.bind("emailVerified", filter.getEmailVerified());
+        }
+        if (filter.getCreatedFrom() != null) {
+            spec = spec.bind("createdFrom", filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            spec = spec.bind("createdTo", filter.getCreatedTo());
+        }
+        return spec.map(UserExportService::toRow).all().collectList();
+    }
+
+    private static UserExportRow toRow(Readable row) {
+        Boolean emailVerified = row.get("email_verified", Boolean.class);
+        return new UserExportRow(
+                row.get("id", Long.class),
+                row.get("username", String.class),
+                row.get("email", String.class),
+                Boolean.TRUE.equals(emailVerified),
+                roleNames(row.get("roles", Integer.class)),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class));
+    }
+
+    private static String roleNames(Integer roles) {
+        return RoleBits.decode(roles != null ? roles : 0).stream()
+                .map(Enum::name)
+                .collect(Collectors.joining("|"));
+    }
+
+    private static String toCsv(UserExportRow user) {
+        return user.getId() + "," +
+                escape(user.getUsername()) + "," +
+                escape(user.getEmail()) + "," +
+                user.isEmailVerified() + "," +
+                escape(user.getRoles()) + "," +
+                (user.getCreatedAt() != null ? user.getCreatedAt() : "") + "," +
+                (user.getUpdatedAt() != null ? user.getUpdatedAt() : "") + "\n";
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
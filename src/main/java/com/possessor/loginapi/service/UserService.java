@@ -5,7 +5,10 @@ import com.possessor.loginapi.dto.MessageResponse;
 import com.possessor.loginapi.dto.UpdateProfileRequest;
 import com.possessor.loginapi.exception.AuthenticationException;
 import com.possessor.loginapi.exception.UserAlreadyExistsException;
+import com.possessor.loginapi.repository.ReadYourWritesTracker;
+import com.possessor.loginapi.repository.ShardRouter;
 import com.possessor.loginapi.repository.UserRepository;
+import com.possessor.loginapi.support.Deadlines;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
@@ -22,16 +25,24 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ShardRouter shardRouter;
+    private final Deadlines deadlines;
+    private final RefreshTokenService refreshTokenService;
     
     @CacheEvict(value = "users", key = "#username")
     public Mono<MessageResponse> updateProfile(String username, UpdateProfileRequest request) {
-        return userRepository.findByUsername(username)
+        return shardRouter.onUsernameShard(username, deadlines.bound(Deadlines.DATABASE, userRepository.findByUsername(username)))
                 .switchIfEmpty(Mono.error(new AuthenticationException("User not found")))
                 .flatMap(user -> {
+                    String previousUsername = user.getUsername();
+                    String previousEmail = user.getEmail();
                     Mono<Void> validationMono = Mono.empty();
                     
                     if (request.getUsername() != null && !request.getUsername().equals(user.getUsername())) {
-                        validationMono = userRepository.existsByUsername(request.getUsername())
+                        validationMono = shardRouter.onUsernameShard(request.getUsername().toLowerCase(),
+                                        deadlines.bound(Deadlines.DATABASE,
+                                                userRepository.existsByUsername(request.getUsername().toLowerCase())))
                                 .flatMap(exists -> exists ? 
                                     Mono.error(new UserAlreadyExistsException("Username already exists")) : 
                                     Mono.empty());
@@ -40,7 +51,7 @@ public class UserService {
                     
                     if (request.getEmail() != null && !request.getEmail().equals(user.getEmail())) {
                         validationMono = validationMono.then(
-                            userRepository.existsByEmail(request.getEmail())
+                            deadlines.bound(Deadlines.DATABASE, shardRouter.isEmailRegistered(request.getEmail().toLowerCase()))
                                 .flatMap(exists -> exists ? 
                                     Mono.error(new UserAlreadyExistsException("Email already exists")) : 
                                     Mono.empty())
@@ -50,8 +61,25 @@ public class UserService {
                     }
                     
                     user.setUpdatedAt(LocalDateTime.now());
+                    // Refresh token families carry the old username and email as claims
+                    boolean claimsChanged = !user.getUsername().equals(previousUsername)
+                            || !user.getEmail().equals(previousEmail);
                     
-                    return validationMono.then(userRepository.save(user));
+                    // A sharded save can span shards and the email directory, so it is never cancelled part-way
+                    return validationMono.then(deadlines.guard(Deadlines.DATABASE,
+                                    shardRouter.save(user, previousUsername, previousEmail)))
+                            // Email availability reads are keyed by the freed and the claimed address
+                            .doOnNext(saved -> {
+                                readYourWritesTracker.recordWrite(previousEmail);
+                                readYourWritesTracker.recordWrite(saved.getEmail());
+                            })
+                            .flatMap(saved -> claimsChanged
+                                    ? refreshTokenService.revokeAll(previousUsername).thenReturn(saved)
+                                    : Mono.just(saved));
+                })
+                .doOnNext(user -> {
+                    readYourWritesTracker.recordWrite(username);
+                    readYourWritesTracker.recordWrite(user.getUsername());
                 })
                 .map(user -> new MessageResponse("Profile updated successfully"))
                 .doOnSuccess(response -> log.info("Profile updated for user: {}", username))
@@ -60,7 +88,7 @@ public class UserService {
     
     @CacheEvict(value = "users", key = "#username")
     public Mono<MessageResponse> changePassword(String username, ChangePasswordRequest request) {
-        return userRepository.findByUsername(username)
+        return shardRouter.onUsernameShard(username, deadlines.bound(Deadlines.DATABASE, userRepository.findByUsername(username)))
                 .switchIfEmpty(Mono.error(new AuthenticationException("User not found")))
                 .flatMap(user -> {
                     if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
@@ -70,8 +98,10 @@ public class UserService {
                     user.setPassword(passwordEncoder.encode(request.getNewPassword()));
                     user.setUpdatedAt(LocalDateTime.now());
                     
-                    return userRepository.save(user);
+                    return shardRouter.forWrite(username, deadlines.bound(Deadlines.DATABASE, userRepository.save(user)));
                 })
+                .flatMap(user -> refreshTokenService.revokeAll(username).thenReturn(user))
+                .doOnNext(user -> readYourWritesTracker.recordWrite(username))
                 .map(user -> new MessageResponse("Password changed successfully"))
                 .doOnSuccess(response -> log.info("Password changed for user: {}", username))
                 .doOnError(error -> log.error("Password change failed for user: {}", username, error));
@@ -79,9 +109,12 @@ public class UserService {
     
     @CacheEvict(value = "users", key = "#username")
     public Mono<MessageResponse> deleteAccount(String username) {
-        return userRepository.findByUsername(username)
+        return shardRouter.onUsernameShard(username, deadlines.bound(Deadlines.DATABASE, userRepository.findByUsername(username)))
                 .switchIfEmpty(Mono.error(new AuthenticationException("User not found")))
-                .flatMap(user -> userRepository.delete(user))
+                .flatMap(user -> deadlines.guard(Deadlines.DATABASE, shardRouter.delete(user))
+                        .doOnSuccess(ignored -> readYourWritesTracker.recordWrite(user.getEmail())))
+                .then(refreshTokenService.revokeAll(username))
+                .doOnSuccess(ignored -> readYourWritesTracker.recordWrite(username))
                 .then(Mono.just(new MessageResponse("Account deleted successfully")))
                 .doOnSuccess(response -> log.info("Account deleted for user: {}", username))
                 .doOnError(error -> log.error("Account deletion failed for user: {}", username, error));
@@ -0,0 +1,75 @@
+package com.possessor.loginapi.service;
+
+import com.possessor.loginapi.entity.UserToken;
+import com.possessor.loginapi.enums.TokenType;
+import com.possessor.loginapi.repository.ShardRouter;
+import com.possessor.loginapi.repository.UserTokenRepository;
+import com.possessor.loginapi.security.TokenHasher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserTokenService {
+    
+    private final UserTokenRepository userTokenRepository;
+    private final ShardRouter shardRouter;
+    
+    @Value("${app.tokens.purge.batch-size:1000}")
+    private int purgeBatchSize;
+    
+    /**
+     * Issues a new single-use token, invalidating any live token of the same type.
+     * Only the SHA-256 digest is persisted; the raw token is returned for delivery.
+     */
+    public Mono<String> issue(Long userId, TokenType tokenType, Duration ttl) {
+        String rawToken = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        UserToken token = new UserToken(null, userId, TokenHasher.sha256Hex(rawToken), tokenType,
+                now.plus(ttl), null, now);
+        
+        return userTokenRepository.consumeAllForUser(userId, tokenType.name(), now)
+                .then(userTokenRepository.save(token))
+                .thenReturn(rawToken);
+    }
+    
+    /**
+     * Atomically marks a live token as used. Emits false when the token was already
+     * consumed or expired, so concurrent redemptions of the same token cannot both win.
+     */
+    public Mono<Boolean> consume(String tokenHash, TokenType tokenType) {
+        return userTokenRepository.consume(tokenHash, tokenType.name(), LocalDateTime.now())
+                .map(updated -> updated > 0);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.tokens.purge.interval:PT10M}",
+               initialDelayString = "${app.tokens.purge.initial-delay:PT1M}")
+    public Mono<Void> purgeStaleTokens() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        Mono<Long> purgeShard = userTokenRepository.deleteStaleBatch(cutoff, purgeBatchSize)
+                .expand(deleted -> deleted >= purgeBatchSize
+                        ? userTokenRepository.deleteStaleBatch(cutoff, purgeBatchSize)
+                        : Mono.empty())
+                .reduce(0L, (total, deleted) -> total + deleted);
+        
+        return shardRouter.onEachShard(purgeShard)
+                .reduce(0L, Long::sum)
+                .doOnNext(total -> {
+                    if (total > 0) {
+                        log.info("Purged {} stale user tokens", total);
+                    }
+                })
+                .doOnError(error -> log.error("Failed to purge stale user tokens", error))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+}
@@ -0,0 +1,20 @@
+package com.possessor.loginapi.support;
+
+import java.time.Duration;
+
+// The instant a request's work stops being useful, on the monotonic clock
+public record Deadline(long expiresAtNanos) {
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    // Zero or negative once the deadline has passed
+    public Duration remaining() {
+        return Duration.ofNanos(expiresAtNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+}
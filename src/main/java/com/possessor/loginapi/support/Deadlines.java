@@ -0,0 +1,85 @@
+package com.possessor.loginapi.support;
+
+import com.possessor.loginapi.constants.AuthConstants;
+import com.possessor.loginapi.constants.ErrorMessages;
+import com.possessor.loginapi.constants.MetricsConstants;
+import com.possessor.loginapi.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Bounds dependency calls by the request's deadline, carried in the Reactor context, and by a
+ * per-dependency call timeout. The bound is computed at subscription, so a retry only gets what is
+ * left of the budget, and a call whose deadline has already passed is refused without being made.
+ * A timed-out call is cancelled, which releases its connection or command instead of letting it
+ * finish for nobody. Calls made outside a request only get the per-dependency timeout.
+ */
+@Component
+public class Deadlines {
+
+    public static final String REDIS = "redis";
+    public static final String DATABASE = "database";
+    public static final String TOKEN_SERVICE = "token-service";
+    public static final String PASSWORD_HASH = "password-hash";
+
+    private final Map<String, Duration> callTimeouts;
+    private final Map<String, Counter> exceeded;
+
+    public Deadlines(MeterRegistry meterRegistry,
+                     @Value("${app.deadline.call-timeout.redis:250ms}") Duration redisTimeout,
+                     @Value("${app.deadline.call-timeout.database:2s}") Duration databaseTimeout,
+                     @Value("${app.deadline.call-timeout.token-service:5s}") Duration tokenServiceTimeout) {
+        this.callTimeouts = Map.of(REDIS, redisTimeout, DATABASE, databaseTimeout, TOKEN_SERVICE, tokenServiceTimeout);
+        this.exceeded = Map.of(REDIS, counter(meterRegistry, REDIS), DATABASE, counter(meterRegistry, DATABASE),
+                TOKEN_SERVICE, counter(meterRegistry, TOKEN_SERVICE), PASSWORD_HASH, counter(meterRegistry, PASSWORD_HASH));
+    }
+
+    public <T> Mono<T> bound(String dependency, Mono<T> call) {
+        return Mono.deferContextual(context -> {
+            Duration timeout = callTimeouts.get(dependency);
+            Deadline deadline = deadlineOf(context);
+            if (deadline != null) {
+                Duration remaining = deadline.remaining();
+                if (remaining.isNegative() || remaining.isZero()) {
+                    return exceeded(dependency);
+                }
+                if (remaining.compareTo(timeout) < 0) {
+                    timeout = remaining;
+                }
+            }
+            return call.timeout(timeout, Mono.defer(() -> exceeded(dependency)));
+        });
+    }
+
+    // For CPU-bound work that cannot be interrupted: it is refused once the deadline has passed,
+    // but once started it runs to completion
+    public <T> Mono<T> guard(String stage, Mono<T> work) {
+        return Mono.deferContextual(context -> {
+            Deadline deadline = deadlineOf(context);
+            return deadline != null && deadline.isExpired() ? exceeded(stage) : work;
+        });
+    }
+
+    public static Deadline deadlineOf(ContextView context) {
+        return context.getOrDefault(AuthConstants.DEADLINE_KEY, null);
+    }
+
+    private <T> Mono<T> exceeded(String dependency) {
+        exceeded.get(dependency).increment();
+        return Mono.error(new DeadlineExceededException(ErrorMessages.DEADLINE_EXCEEDED_ERROR + " waiting on " + dependency));
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String dependency) {
+        return Counter.builder(MetricsConstants.DEADLINE_EXCEEDED)
+                .description(MetricsConstants.DEADLINE_EXCEEDED_DESC)
+                .tag("dependency", dependency)
+                .register(meterRegistry);
+    }
+}
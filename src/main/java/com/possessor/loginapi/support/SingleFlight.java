@@ -0,0 +1,87 @@
+package com.possessor.loginapi.support;
+
+import com.possessor.loginapi.constants.MetricsConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent lookups: while a call for a (name, key) pair is in flight, later
+ * callers subscribe to the same cached Mono instead of repeating the work. The entry is removed as
+ * soon as the call terminates, so results are never served after completion; an entry older than
+ * {@code app.single-flight.max-lifetime} is replaced so one stuck call cannot pin every caller.
+ */
+@Component
+public class SingleFlight {
+    
+    private final Map<FlightKey, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long maxLifetimeNanos;
+    
+    public SingleFlight(MeterRegistry meterRegistry,
+                        @Value("${app.single-flight.max-lifetime:5s}") Duration maxLifetime) {
+        this.meterRegistry = meterRegistry;
+        this.maxLifetimeNanos = maxLifetime.toNanos();
+        Gauge.builder(MetricsConstants.SINGLE_FLIGHT_IN_FLIGHT, inFlight, Map::size)
+                .description(MetricsConstants.SINGLE_FLIGHT_IN_FLIGHT_DESC)
+                .register(meterRegistry);
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String name, Object key, Supplier<Mono<T>> work) {
+        return Mono.defer(() -> {
+            FlightKey flightKey = new FlightKey(name, key);
+            long now = System.nanoTime();
+            Flight[] created = new Flight[1];
+            Flight flight = inFlight.compute(flightKey, (k, current) -> {
+                if (current != null && now - current.startedAt() < maxLifetimeNanos) {
+                    return current;
+                }
+                created[0] = start(k, work, now);
+                return created[0];
+            });
+            Counter[] outcome = counters.computeIfAbsent(name, this::register);
+            (flight == created[0] ? outcome[0] : outcome[1]).increment();
+            return (Mono<T>) flight.result();
+        });
+    }
+    
+    private <T> Flight start(FlightKey key, Supplier<Mono<T>> work, long now) {
+        Flight[] self = new Flight[1];
+        Mono<T> result = Mono.defer(work)
+                .doFinally(signal -> inFlight.remove(key, self[0]))
+                .cache();
+        self[0] = new Flight(result, now);
+        return self[0];
+    }
+    
+    private Counter[] register(String name) {
+        return new Counter[] {
+                Counter.builder(MetricsConstants.SINGLE_FLIGHT_CALLS)
+                        .description(MetricsConstants.SINGLE_FLIGHT_CALLS_DESC)
+                        .tag("name", name)
+                        .tag("outcome", "executed")
+                        .register(meterRegistry),
+                Counter.builder(MetricsConstants.SINGLE_FLIGHT_CALLS)
+                        .description(MetricsConstants.SINGLE_FLIGHT_CALLS_DESC)
+                        .tag("name", name)
+                        .tag("outcome", "deduplicated")
+                        .register(meterRegistry)
+        };
+    }
+    
+    private record FlightKey(String name, Object key) {
+    }
+    
+    private record Flight(Mono<?> result, long startedAt) {
+    }
+}
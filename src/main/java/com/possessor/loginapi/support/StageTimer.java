@@ -0,0 +1,141 @@
+package com.possessor.loginapi.support;
+
+import com.possessor.loginapi.constants.MetricsConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Times the individual stages of a request pipeline under one meter tagged by pipeline, stage and
+ * outcome. Tag values are fixed literals at the call sites, so cardinality stays bounded. Each
+ * timer publishes a percentile histogram and SLO buckets for Prometheus, plus client-side
+ * percentiles over a short decaying window that the {@code stages} actuator endpoint reports.
+ */
+@Component
+public class StageTimer {
+    
+    public static final String FILTER_PIPELINE = "filter";
+    
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+    
+    private final Map<StageKey, Timer> timers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Duration[] slos;
+    private final Duration window;
+    
+    public StageTimer(MeterRegistry meterRegistry,
+                      @Value("${app.metrics.stage.slo:5ms,10ms,25ms,50ms,100ms,250ms,500ms,1s}") Duration[] slos,
+                      @Value("${app.metrics.stage.window:1m}") Duration window) {
+        this.meterRegistry = meterRegistry;
+        this.slos = slos;
+        this.window = window;
+    }
+    
+    // Recorded as the value or error is emitted, before downstream stages run on the same thread
+    public <T> Mono<T> time(String pipeline, String stage, Mono<T> work) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return work
+                    .doOnSuccess(value -> record(pipeline, stage, "success", start))
+                    .doOnError(error -> record(pipeline, stage, "error", start));
+        });
+    }
+    
+    public <T> T time(String pipeline, String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            T result = work.get();
+            record(pipeline, stage, "success", start);
+            return result;
+        } catch (RuntimeException e) {
+            record(pipeline, stage, "error", start);
+            throw e;
+        }
+    }
+    
+    // Measures a WebFilter's own work: the clock stops when it hands over to the rest of the chain,
+    // or when it completes the exchange itself
+    public Mono<Void> filter(String name, ServerWebExchange exchange, WebFilterChain chain,
+                             BiFunction<ServerWebExchange, WebFilterChain, Mono<Void>> filter) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            WebFilterChain timedChain = next -> Mono.defer(() -> {
+                if (recorded.compareAndSet(false, true)) {
+                    record(FILTER_PIPELINE, name, "pass", start);
+                }
+                return chain.filter(next);
+            });
+            return filter.apply(exchange, timedChain)
+                    .doFinally(signal -> {
+                        if (signal != SignalType.CANCEL && recorded.compareAndSet(false, true)) {
+                            record(FILTER_PIPELINE, name, "rejected", start);
+                        }
+                    });
+        });
+    }
+    
+    private void record(String pipeline, String stage, String outcome, long start) {
+        timers.computeIfAbsent(new StageKey(pipeline, stage, outcome), this::register)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    
+    private Timer register(StageKey key) {
+        return Timer.builder(MetricsConstants.PIPELINE_STAGE)
+                .description(MetricsConstants.PIPELINE_STAGE_DESC)
+                .tag("pipeline", key.pipeline())
+                .tag("stage", key.stage())
+                .tag("outcome", key.outcome())
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(slos)
+                .distributionStatisticExpiry(window)
+                .register(meterRegistry);
+    }
+    
+    // pipeline -> stage -> outcome -> recent latency in milliseconds
+    public Map<String, Object> describe(@Nullable String pipeline) {
+        Map<String, Map<String, Map<String, Object>>> pipelines = new TreeMap<>();
+        timers.forEach((key, timer) -> {
+            if (pipeline != null && !pipeline.equals(key.pipeline())) {
+                return;
+            }
+            pipelines.computeIfAbsent(key.pipeline(), p -> new TreeMap<>())
+                    .computeIfAbsent(key.stage(), s -> new TreeMap<>())
+                    .put(key.outcome(), summarize(timer.takeSnapshot()));
+        });
+        return new LinkedHashMap<>(pipelines);
+    }
+    
+    private static Map<String, Object> summarize(HistogramSnapshot snapshot) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", snapshot.count());
+        summary.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            summary.put("p" + Math.round(value.percentile() * 100) + "Ms", value.value(TimeUnit.MILLISECONDS));
+        }
+        summary.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        return summary;
+    }
+    
+    private record StageKey(String pipeline, String stage, String outcome) {
+    }
+}
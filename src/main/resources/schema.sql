@@ -4,13 +4,84 @@ CREATE TABLE IF NOT EXISTS users (
     email VARCHAR(100) UNIQUE NOT NULL,
     password VARCHAR(255) NOT NULL,
     email_verified BOOLEAN DEFAULT FALSE,
-    verification_token VARCHAR(255),
-    reset_token VARCHAR(255),
-    reset_token_expiry TIMESTAMP,
     user_role VARCHAR(20) DEFAULT 'USER' NOT NULL,
+    roles INTEGER DEFAULT 2 NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    shard_bucket INTEGER,
+    last_login_at TIMESTAMP,
+    failed_login_count INTEGER DEFAULT 0 NOT NULL,
+    last_failed_login_at TIMESTAMP
 );
 
-CREATE INDEX IF NOT EXISTS idx_users_reset_token ON users(reset_token);
-CREATE INDEX IF NOT EXISTS idx_users_verification_token ON users(verification_token);
\ No newline at end of file
+ALTER TABLE users ADD COLUMN IF NOT EXISTS shard_bucket INTEGER;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_login_at TIMESTAMP;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS failed_login_count INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_failed_login_at TIMESTAMP;
+
+-- Roles are a bitmask over UserRole ordinals (USER = 2). user_role is legacy: any non-default value
+-- is folded into roles once and reset, so later role changes are never overwritten on restart.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS roles INTEGER DEFAULT 2 NOT NULL;
+UPDATE users SET roles = roles | (1 << (array_position(
+        ARRAY['GUEST', 'USER', 'PREMIUM_USER', 'MODERATOR', 'SUPPORT', 'MANAGER', 'ADMIN', 'SUPER_ADMIN'], user_role) - 1)),
+    user_role = 'USER'
+WHERE user_role <> 'USER'
+  AND user_role IN ('GUEST', 'PREMIUM_USER', 'MODERATOR', 'SUPPORT', 'MANAGER', 'ADMIN', 'SUPER_ADMIN');
+CREATE INDEX IF NOT EXISTS idx_users_shard_bucket ON users(shard_bucket);
+
+-- Single-use tokens moved to user_tokens
+DROP INDEX IF EXISTS idx_users_reset_token;
+DROP INDEX IF EXISTS idx_users_verification_token;
+ALTER TABLE users DROP COLUMN IF EXISTS verification_token;
+ALTER TABLE users DROP COLUMN IF EXISTS reset_token;
+ALTER TABLE users DROP COLUMN IF EXISTS reset_token_expiry;
+
+CREATE TABLE IF NOT EXISTS user_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    token_hash CHAR(64) NOT NULL,
+    token_type VARCHAR(20) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    consumed_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Lookups only ever target live tokens; consumed rows drop out of the index immediately
+CREATE UNIQUE INDEX IF NOT EXISTS idx_user_tokens_live_hash
+    ON user_tokens(token_hash, token_type) WHERE consumed_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_user_tokens_user_type
+    ON user_tokens(user_id, token_type) WHERE consumed_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_user_tokens_expires_at ON user_tokens(expires_at);
+
+-- Token emails are queued in the transaction that issues the token and sent by the outbox
+-- dispatcher; payload holds the token, AES-GCM encrypted, only until the email is sent or abandoned
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    recipient VARCHAR(100) NOT NULL,
+    email_type VARCHAR(20) NOT NULL,
+    payload VARCHAR(100),
+    status VARCHAR(10) DEFAULT 'PENDING' NOT NULL,
+    attempts INTEGER DEFAULT 0 NOT NULL,
+    next_attempt_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    lease_until TIMESTAMP,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due
+    ON email_outbox(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_email_outbox_created_at ON email_outbox(created_at);
+
+-- Shard directory (only used on the primary when app.db.shards.urls is set)
+CREATE TABLE IF NOT EXISTS email_shard_directory (
+    email VARCHAR(100) PRIMARY KEY,
+    username VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS shard_buckets (
+    bucket INTEGER PRIMARY KEY,
+    shard_id INTEGER NOT NULL,
+    state VARCHAR(10) DEFAULT 'ACTIVE' NOT NULL
+);